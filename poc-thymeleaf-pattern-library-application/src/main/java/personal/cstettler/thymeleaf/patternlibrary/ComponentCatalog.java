@@ -0,0 +1,179 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.stream;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.core.io.Resource;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Immutable snapshot of all component groups found in the components resource path, indexed by group id. A snapshot is
+ * built once and replaced when the components change, reusing the extracted contents of all unchanged groups.
+ */
+class ComponentCatalog {
+
+  static final String ROOT_GROUP_ID = "/";
+
+  private final Map<String, ComponentGroup> componentGroupsById;
+  private final ComponentGroup rootComponentGroup;
+
+  private volatile String navigationHash;
+
+  private ComponentCatalog(Map<String, ComponentGroup> componentGroupsById) {
+    this.componentGroupsById = componentGroupsById;
+    this.rootComponentGroup = componentGroupsById.get(ROOT_GROUP_ID);
+
+    if (rootComponentGroup == null) {
+      throw new IllegalStateException("root component group not found");
+    }
+  }
+
+  static ComponentCatalog of(Resource componentResourcesRoot, Resource[] componentResources) {
+    return of(componentResourcesByGroupId(componentResourcesRoot, componentResources));
+  }
+
+  ComponentCatalog withComponentResources(Resource componentResourcesRoot, String groupId, boolean includingSubGroups, Resource[] componentResources) {
+    // all other groups are taken over including their extracted contents, only the given group (and its sub groups) are
+    // rebuilt and prerendered
+    Map<String, ComponentGroup> componentGroupsById = new LinkedHashMap<>();
+    this.componentGroupsById.forEach((existingGroupId, componentGroup) -> {
+      if (!isReplaced(existingGroupId, groupId, includingSubGroups)) {
+        componentGroupsById.put(existingGroupId, componentGroup.withoutSubGroups());
+      }
+    });
+
+    componentResourcesByGroupId(componentResourcesRoot, componentResources).forEach((replacedGroupId, replacedResources) -> {
+      if (isReplaced(replacedGroupId, groupId, includingSubGroups)) {
+        ComponentGroup replacedComponentGroup = new ComponentGroup(replacedGroupId, replacedResources);
+        replacedComponentGroup.prerender();
+        componentGroupsById.put(replacedGroupId, replacedComponentGroup);
+      }
+    });
+
+    buildComponentGroupHierarchy(componentGroupsById);
+
+    return new ComponentCatalog(unmodifiableMap(componentGroupsById));
+  }
+
+  static ComponentCatalog of(Map<String, List<Resource>> componentResourcesByGroupId) {
+    Map<String, ComponentGroup> componentGroupsById = buildComponentGroups(componentResourcesByGroupId);
+    buildComponentGroupHierarchy(componentGroupsById);
+
+    return new ComponentCatalog(unmodifiableMap(componentGroupsById));
+  }
+
+  ComponentGroup getRootComponentGroup() {
+    return rootComponentGroup;
+  }
+
+  /**
+   * Extracts and renders documentation and examples of all component groups in parallel.
+   */
+  void prerender() {
+    componentGroupsById.values().parallelStream().forEach(ComponentGroup::prerender);
+  }
+
+  Collection<ComponentGroup> getComponentGroups() {
+    return componentGroupsById.values();
+  }
+
+  /**
+   * Hash over ids and names of all component groups, changes whenever the navigation shown on every page changes.
+   * Computed once per catalog.
+   */
+  String getNavigationHash() {
+    String currentNavigationHash = navigationHash;
+
+    if (currentNavigationHash == null) {
+      String navigation = componentGroupsById.values().stream()
+        .map(componentGroup -> componentGroup.getId() + "=" + componentGroup.getName())
+        .collect(joining("\n"));
+
+      currentNavigationHash = DigestUtils.md5DigestAsHex(navigation.getBytes(UTF_8));
+      navigationHash = currentNavigationHash;
+    }
+
+    return currentNavigationHash;
+  }
+
+  Optional<ComponentGroup> componentGroupFor(String groupId) {
+    return Optional.ofNullable(componentGroupsById.get(groupId));
+  }
+
+  Optional<ComponentGroup.Showcase> showCaseFor(String showCaseId) {
+    return componentGroupForExample(showCaseId).flatMap(componentGroup -> componentGroup.showCaseFor(showCaseId));
+  }
+
+  Optional<ComponentGroup> componentGroupForExample(String examplePath) {
+    return componentGroupFor(examplePath.substring(0, examplePath.lastIndexOf(ROOT_GROUP_ID) + 1));
+  }
+
+  private static Map<String, List<Resource>> componentResourcesByGroupId(Resource componentResourcesRoot, Resource[] componentResources) {
+    String componentResourcesRootUri = uriFor(componentResourcesRoot);
+
+    // groups (and resources within groups) keep the order of the resources, even if bucketed in parallel
+    return stream(componentResources)
+      .parallel()
+      .collect(groupingBy(componentResource -> groupIdFor(componentResourcesRootUri, componentResource), LinkedHashMap::new, toList()));
+  }
+
+  private static Map<String, ComponentGroup> buildComponentGroups(Map<String, List<Resource>> componentResourcesByGroupId) {
+    Map<String, ComponentGroup> componentGroupsById = new LinkedHashMap<>();
+    componentResourcesByGroupId.forEach((groupId, componentResources) -> componentGroupsById.put(groupId, new ComponentGroup(groupId, componentResources)));
+
+    return componentGroupsById;
+  }
+
+  private static void buildComponentGroupHierarchy(Map<String, ComponentGroup> componentGroupsById) {
+    componentGroupsById.values().forEach(componentGroup -> findParent(componentGroupsById, componentGroup)
+      .ifPresent(parentComponentGroup -> parentComponentGroup.addSubGroup(componentGroup)));
+  }
+
+  private static Optional<ComponentGroup> findParent(Map<String, ComponentGroup> componentGroupsById, ComponentGroup componentGroup) {
+    if (componentGroup.isRoot()) {
+      return Optional.empty();
+    }
+
+    return Optional.ofNullable(componentGroupsById.get(parentGroupIdFor(componentGroup)));
+  }
+
+  private static boolean isReplaced(String candidateGroupId, String groupId, boolean includingSubGroups) {
+    return candidateGroupId.equals(groupId) || (includingSubGroups && candidateGroupId.startsWith(groupId));
+  }
+
+  private static String groupIdFor(String componentResourcesRootUri, Resource componentResource) {
+    String relativePath = uriFor(componentResource).substring(componentResourcesRootUri.length());
+
+    if (relativePath.endsWith(ROOT_GROUP_ID)) {
+      return relativePath;
+    }
+
+    return relativePath.substring(0, relativePath.lastIndexOf(ROOT_GROUP_ID) + 1);
+  }
+
+  private static String parentGroupIdFor(ComponentGroup componentGroup) {
+    String[] groupIdSegments = componentGroup.getId().split(ROOT_GROUP_ID);
+
+    return stream(groupIdSegments)
+      .limit(groupIdSegments.length - 1)
+      .collect(joining(ROOT_GROUP_ID, "", ROOT_GROUP_ID));
+  }
+
+  static String uriFor(Resource resource) {
+    try {
+      return resource.getURI().toString();
+    } catch (IOException e) {
+      throw new IllegalStateException("unable to get uri for resource '" + resource + "'", e);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static personal.cstettler.thymeleaf.patternlibrary.ComponentCatalog.uriFor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * Index of a component catalog, containing all component groups with their resources plus the extracted sources,
+ * titles and rendered markdown, as well as the hash of the shared resources (see {@link SharedResourcesHash}). Written
+ * at build time (see main method), so that the application can load the catalog at startup without scanning and reading
+ * the components resources or any other templates and static resources.
+ */
+public class ComponentCatalogIndex {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final ComponentCatalog componentCatalog;
+  private final String sharedResourcesHash;
+
+  private ComponentCatalogIndex(ComponentCatalog componentCatalog, String sharedResourcesHash) {
+    this.componentCatalog = componentCatalog;
+    this.sharedResourcesHash = sharedResourcesHash;
+  }
+
+  /**
+   * Writes the index of the components directory given as first argument into the file given as second argument.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      throw new IllegalArgumentException("usage: ComponentCatalogIndex <components directory> <index file>");
+    }
+
+    Path componentsDirectory = Paths.get(args[0]);
+    Path indexFile = Paths.get(args[1]);
+    ComponentCatalogRepository componentCatalogRepository = new ComponentCatalogRepository("file:" + componentsDirectory);
+
+    Files.createDirectories(indexFile.getParent());
+    Files.write(indexFile, write(
+      componentCatalogRepository.getComponentCatalog(), componentCatalogRepository.getComponentResourcesRoot(),
+      new SharedResourcesHash(componentCatalogRepository).get()
+    ));
+  }
+
+  static byte[] write(ComponentCatalog componentCatalog, Resource componentResourcesRoot, String sharedResourcesHash) throws IOException {
+    String componentResourcesRootUri = uriFor(componentResourcesRoot);
+    ObjectNode index = OBJECT_MAPPER.createObjectNode();
+    index.put("sharedResourcesHash", sharedResourcesHash);
+    ArrayNode componentGroups = index.putArray("componentGroups");
+
+    for (ComponentGroup componentGroup : componentCatalog.getComponentGroups()) {
+      ObjectNode indexedComponentGroup = componentGroups.addObject().put("id", componentGroup.getId());
+      ArrayNode resources = indexedComponentGroup.putArray("resources");
+
+      for (Resource resource : componentGroup.getResources()) {
+        ObjectNode indexedResource = resources.addObject().put("path", uriFor(resource).substring(componentResourcesRootUri.length()));
+
+        if (ComponentGroup.isDocumentation(resource) || ComponentGroup.isExample(resource)) {
+          ResourceContent resourceContent = componentGroup.contentOf(resource);
+          indexedResource.put("source", resourceContent.getSource());
+        }
+
+        if (ComponentGroup.isDocumentation(resource)) {
+          ResourceContent resourceContent = componentGroup.contentOf(resource);
+          indexedResource.put("title", resourceContent.getTitle());
+          indexedResource.put("renderedContent", resourceContent.getRenderedContent());
+        }
+      }
+    }
+
+    return OBJECT_MAPPER.writeValueAsBytes(index);
+  }
+
+  static ComponentCatalogIndex read(Resource indexResource, String componentsResourcePath, ResourceLoader resourceLoader) throws IOException {
+    JsonNode index;
+
+    try (InputStream inputStream = indexResource.getInputStream()) {
+      index = OBJECT_MAPPER.readTree(inputStream);
+    }
+
+    Map<String, List<Resource>> componentResourcesByGroupId = new LinkedHashMap<>();
+    Map<String, List<ResourceContent>> resourceContentsByGroupId = new LinkedHashMap<>();
+
+    for (JsonNode indexedComponentGroup : index.get("componentGroups")) {
+      String groupId = indexedComponentGroup.get("id").asText();
+      List<Resource> resources = new ArrayList<>();
+      List<ResourceContent> resourceContents = new ArrayList<>();
+
+      for (JsonNode indexedResource : indexedComponentGroup.get("resources")) {
+        // only creates a handle for the resource, the resource is neither looked up nor read
+        Resource resource = resourceLoader.getResource(componentsResourcePath + indexedResource.get("path").asText());
+        resources.add(resource);
+
+        if (indexedResource.has("source")) {
+          resourceContents.add(new ResourceContent(
+            resource, indexedResource.get("source").asText(), textOrNull(indexedResource, "title"), textOrNull(indexedResource, "renderedContent")
+          ));
+        }
+      }
+
+      componentResourcesByGroupId.put(groupId, resources);
+      resourceContentsByGroupId.put(groupId, resourceContents);
+    }
+
+    ComponentCatalog componentCatalog = ComponentCatalog.of(componentResourcesByGroupId);
+    resourceContentsByGroupId.forEach((groupId, resourceContents) -> {
+      ComponentGroup componentGroup = componentCatalog.componentGroupFor(groupId).orElseThrow();
+      resourceContents.forEach(componentGroup::addResourceContent);
+    });
+
+    return new ComponentCatalogIndex(componentCatalog, textOrNull(index, "sharedResourcesHash"));
+  }
+
+  ComponentCatalog getComponentCatalog() {
+    return componentCatalog;
+  }
+
+  /**
+   * Hash of the shared resources computed at build time, or null if the index was written without it.
+   */
+  String getSharedResourcesHash() {
+    return sharedResourcesHash;
+  }
+
+  private static String textOrNull(JsonNode node, String fieldName) {
+    JsonNode field = node.get(fieldName);
+
+    return field == null || field.isNull() ? null : field.asText();
+  }
+}
@@ -0,0 +1,167 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.util.Arrays.asList;
+import static personal.cstettler.thymeleaf.patternlibrary.ComponentCatalog.ROOT_GROUP_ID;
+import static personal.cstettler.thymeleaf.patternlibrary.ComponentCatalog.uriFor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the current {@link ComponentCatalog}. The components resource path is scanned once at startup and only again
+ * when explicitly refreshed, so that requests never scan the classpath. Refreshes build a new catalog and swap it in
+ * as a whole, so concurrent requests always see a complete catalog.
+ */
+@Component
+class ComponentCatalogRepository {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ComponentCatalogRepository.class);
+
+  private final String componentsResourcePath;
+  private final Resource componentResourcesRoot;
+  private final ResourcePatternResolver resourcePatternResolver;
+  private final String indexedSharedResourcesHash;
+
+  private volatile ComponentCatalog componentCatalog;
+
+  ComponentCatalogRepository(String componentsResourcePath) {
+    this(componentsResourcePath, null);
+  }
+
+  @Autowired
+  ComponentCatalogRepository(
+    @Value("${pattern-library.components-resource-path}") String componentsResourcePath,
+    @Value("${pattern-library.components-index-path:#{null}}") String componentsIndexPath
+  ) {
+    this.componentsResourcePath = componentsResourcePath;
+    this.resourcePatternResolver = new PathMatchingResourcePatternResolver(getClass().getClassLoader());
+    this.componentResourcesRoot = resourcePatternResolver.getResource(componentsResourcePath);
+
+    if (!componentResourcesRoot.exists()) {
+      throw new IllegalStateException("components resource path '" + componentsResourcePath + "' does not exist");
+    }
+
+    Resource indexDocumentationResource = resourcePatternResolver.getResource(componentsResourcePath + "/index.md");
+
+    if (!indexDocumentationResource.exists()) {
+      throw new IllegalStateException("no index.md found in folder " + uriFor(componentResourcesRoot));
+    }
+
+    // index is only present if built with the 'production' profile
+    Resource componentsIndexResource = componentsIndexPath != null ? resourcePatternResolver.getResource(componentsIndexPath) : null;
+
+    // eagerly make application fail if resources are not ok
+    if (componentsIndexResource != null && componentsIndexResource.exists()) {
+      ComponentCatalogIndex componentCatalogIndex = load(componentsIndexResource);
+      this.componentCatalog = componentCatalogIndex.getComponentCatalog();
+      this.indexedSharedResourcesHash = componentCatalogIndex.getSharedResourcesHash();
+    } else {
+      this.componentCatalog = scan();
+      this.indexedSharedResourcesHash = null;
+    }
+  }
+
+  ComponentCatalog getComponentCatalog() {
+    return componentCatalog;
+  }
+
+  synchronized void refresh() {
+    componentCatalog = scan();
+  }
+
+  synchronized void refresh(String groupId, boolean includingSubGroups) {
+    try {
+      List<Resource> componentResources = new ArrayList<>(asList(
+        resourcePatternResolver.getResources(componentsResourcePath + groupId + (includingSubGroups ? "**/*" : "*"))
+      ));
+
+      if (!groupId.equals(ROOT_GROUP_ID)) {
+        // the group folder itself is part of the group, but not matched by the pattern
+        Resource groupResource = resourcePatternResolver.getResource(componentsResourcePath + groupId);
+
+        if (groupResource.exists()) {
+          componentResources.add(0, groupResource);
+        }
+      }
+
+      componentCatalog = componentCatalog.withComponentResources(
+        componentResourcesRoot, groupId, includingSubGroups, componentResources.toArray(new Resource[0])
+      );
+    } catch (IOException e) {
+      throw new IllegalStateException("failed to collect resources of component group '" + groupId + "'", e);
+    }
+  }
+
+  /**
+   * Hash of the shared resources computed at build time, if the catalog was loaded from an index containing it.
+   */
+  Optional<String> getIndexedSharedResourcesHash() {
+    return Optional.ofNullable(indexedSharedResourcesHash);
+  }
+
+  Resource getComponentResourcesRoot() {
+    return componentResourcesRoot;
+  }
+
+  Optional<Path> componentResourcesDirectory() {
+    if (!componentResourcesRoot.isFile()) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(componentResourcesRoot.getFile().toPath());
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private ComponentCatalogIndex load(Resource componentsIndexResource) {
+    try {
+      long start = System.currentTimeMillis();
+      ComponentCatalogIndex componentCatalogIndex = ComponentCatalogIndex.read(componentsIndexResource, componentsResourcePath, resourcePatternResolver);
+      ComponentCatalog componentCatalog = componentCatalogIndex.getComponentCatalog();
+
+      LOGGER.info(
+        "loaded component catalog with {} component groups from index '{}' in {} ms",
+        componentCatalog.getComponentGroups().size(), componentsIndexResource.getDescription(), System.currentTimeMillis() - start
+      );
+
+      return componentCatalogIndex;
+    } catch (IOException e) {
+      throw new IllegalStateException("failed to load component catalog from index '" + componentsIndexResource.getDescription() + "'", e);
+    }
+  }
+
+  private ComponentCatalog scan() {
+    try {
+      long start = System.currentTimeMillis();
+      Resource[] componentResources = resourcePatternResolver.getResources(componentsResourcePath + "/**/*");
+      long scanned = System.currentTimeMillis();
+      ComponentCatalog componentCatalog = ComponentCatalog.of(componentResourcesRoot, componentResources);
+      long built = System.currentTimeMillis();
+      componentCatalog.prerender();
+      long prerendered = System.currentTimeMillis();
+
+      LOGGER.info(
+        "built component catalog with {} component groups from {} resources in {} ms (scan {} ms, build {} ms, prerender {} ms)",
+        componentCatalog.getComponentGroups().size(), componentResources.length, prerendered - start,
+        scanned - start, built - scanned, prerendered - built
+      );
+
+      return componentCatalog;
+    } catch (IOException e) {
+      throw new IllegalStateException("failed to collect component groups from resources", e);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static personal.cstettler.thymeleaf.patternlibrary.ComponentCatalog.ROOT_GROUP_ID;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Watches the components folder for changes and refreshes only the affected component groups of the catalog. Only
+ * active if the components resource path is an exploded directory (i.e. during development), not within a jar file.
+ */
+@Component
+class ComponentCatalogWatcher implements SmartLifecycle {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ComponentCatalogWatcher.class);
+
+  private final ComponentCatalogRepository componentCatalogRepository;
+
+  private Path componentResourcesDirectory;
+  private WatchService watchService;
+  private volatile boolean running;
+
+  ComponentCatalogWatcher(ComponentCatalogRepository componentCatalogRepository) {
+    this.componentCatalogRepository = componentCatalogRepository;
+  }
+
+  @Override
+  public void start() {
+    componentResourcesDirectory = componentCatalogRepository.componentResourcesDirectory().orElse(null);
+
+    if (componentResourcesDirectory == null) {
+      return;
+    }
+
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      registerRecursively(componentResourcesDirectory);
+    } catch (IOException e) {
+      throw new IllegalStateException("unable to watch components folder '" + componentResourcesDirectory + "'", e);
+    }
+
+    // set before starting the thread, as the thread stops watching as soon as it sees the watcher is not running
+    running = true;
+    Thread watcherThread = new Thread(this::watch, "component-catalog-watcher");
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      LOGGER.warn("unable to close watch service for components folder '{}'", componentResourcesDirectory, e);
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void watch() {
+    while (running) {
+      WatchKey watchKey;
+
+      try {
+        watchKey = watchService.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      Path directory = (Path) watchKey.watchable();
+
+      try {
+        refreshChangedComponentGroups(directory, watchKey);
+      } catch (RuntimeException e) {
+        LOGGER.warn("unable to refresh component catalog after changes in '{}'", directory, e);
+      } finally {
+        watchKey.reset();
+      }
+    }
+  }
+
+  private void refreshChangedComponentGroups(Path directory, WatchKey watchKey) {
+    Set<String> changedGroupIds = new LinkedHashSet<>();
+    Set<String> changedGroupTreeIds = new LinkedHashSet<>();
+
+    for (WatchEvent<?> event : watchKey.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        changedGroupTreeIds.add(ROOT_GROUP_ID);
+        continue;
+      }
+
+      Path changedPath = directory.resolve((Path) event.context());
+      String changedPathGroupId = groupIdFor(changedPath);
+
+      if (event.kind() == ENTRY_CREATE && Files.isDirectory(changedPath)) {
+        registerRecursively(changedPath);
+        changedGroupTreeIds.add(changedPathGroupId);
+      } else if (event.kind() == ENTRY_DELETE && componentCatalogRepository.getComponentCatalog().componentGroupFor(changedPathGroupId).isPresent()) {
+        changedGroupTreeIds.add(changedPathGroupId);
+      } else if (isDocumentationOrExample(changedPath)) {
+        changedGroupIds.add(groupIdFor(directory));
+      }
+    }
+
+    changedGroupTreeIds.forEach(groupId -> componentCatalogRepository.refresh(groupId, true));
+    changedGroupIds.forEach(groupId -> componentCatalogRepository.refresh(groupId, false));
+  }
+
+  private void registerRecursively(Path directory) {
+    try (Stream<Path> directories = Files.walk(directory).filter(Files::isDirectory)) {
+      directories.forEach(this::register);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void register(Path directory) {
+    try {
+      directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String groupIdFor(Path directory) {
+    Path relativePath = componentResourcesDirectory.relativize(directory);
+
+    if (relativePath.toString().isEmpty()) {
+      return ROOT_GROUP_ID;
+    }
+
+    return ROOT_GROUP_ID + relativePath.toString().replace('\\', '/') + ROOT_GROUP_ID;
+  }
+
+  private static boolean isDocumentationOrExample(Path path) {
+    String filename = path.getFileName().toString();
+
+    return filename.endsWith(".md") || filename.endsWith(".html");
+  }
+}
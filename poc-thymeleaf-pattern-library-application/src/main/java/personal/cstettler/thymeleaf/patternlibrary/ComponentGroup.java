@@ -2,22 +2,22 @@ package personal.cstettler.thymeleaf.patternlibrary;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.stream;
+import static java.util.Collections.binarySearch;
+import static java.util.Collections.unmodifiableList;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
 import org.springframework.core.io.Resource;
-import org.springframework.util.FileCopyUtils;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 
 public class ComponentGroup {
@@ -27,12 +27,26 @@ public class ComponentGroup {
 
   private final String id;
   private final List<Resource> resources;
+  private final Map<String, Resource> resourcesByFilename;
   private final List<ComponentGroup> subGroups;
+  private final Map<Resource, ResourceContent> resourceContents;
 
   public ComponentGroup(String id, List<Resource> resources) {
     this.id = id;
     this.resources = resources;
+    this.resourcesByFilename = new HashMap<>();
     this.subGroups = new ArrayList<>();
+    this.resourceContents = new ConcurrentHashMap<>();
+
+    resources.forEach(resource -> resourcesByFilename.putIfAbsent(resource.getFilename(), resource));
+  }
+
+  private ComponentGroup(ComponentGroup componentGroup) {
+    this.id = componentGroup.id;
+    this.resources = componentGroup.resources;
+    this.resourcesByFilename = componentGroup.resourcesByFilename;
+    this.subGroups = new ArrayList<>();
+    this.resourceContents = componentGroup.resourceContents;
   }
 
   public String getId() {
@@ -41,7 +55,7 @@ public class ComponentGroup {
 
   public String getName() {
     if (hasDocumentation()) {
-      String mainDocumentationTitle = titleFrom(getDocumentation());
+      String mainDocumentationTitle = contentOf(getDocumentation()).getTitle();
 
       if (mainDocumentationTitle != null) {
         return mainDocumentationTitle;
@@ -59,7 +73,7 @@ public class ComponentGroup {
   }
 
   public String getDocumentationContent() {
-    return render(stripTitle(extractResource(getDocumentation())));
+    return contentOf(getDocumentation()).getRenderedContent();
   }
 
   public boolean hasExample() {
@@ -71,9 +85,9 @@ public class ComponentGroup {
   }
 
   public String getExampleContent() {
-    return extractResource(resourceFor(localId() + ".html")
+    return contentOf(resourceFor(localId() + ".html")
       .orElseThrow(() -> new IllegalStateException("no documentation '" + localId() + ".html' found"))
-    );
+    ).getSource();
   }
 
   public boolean hasSubGroups() {
@@ -81,21 +95,72 @@ public class ComponentGroup {
   }
 
   public List<ComponentGroup> getSubGroups() {
-    return subGroups.stream()
-      .sorted(comparing(ComponentGroup::localId))
-      .collect(toList());
+    return unmodifiableList(subGroups);
   }
 
   public List<Showcase> getShowCases() {
     return resources.stream()
       .filter(ComponentGroup::isExample)
       .filter(example -> !isMainExample(example))
-      .map(example -> new Showcase(id + baseName(example), example, lookupDocumentationFor(example)))
+      .map(example -> new Showcase(id + baseName(example), contentOf(example), contentOf(lookupDocumentationFor(example))))
       .collect(toList());
   }
 
+  /**
+   * Hash over the filenames and contents of all documentation and examples of this group (not including sub groups),
+   * changes whenever any of them changes. Derived from the current contents on every call (each content is only hashed
+   * once per modification, see {@link ResourceContent#getContentHash()}), so that it also changes when a resource is
+   * modified in place without the group being replaced.
+   */
+  String getContentHash() {
+    String contentHashes = resources.stream()
+      .filter(resource -> isExample(resource) || isDocumentation(resource))
+      .map(resource -> resource.getFilename() + "=" + contentOf(resource).getContentHash())
+      .collect(joining("\n"));
+
+    return DigestUtils.md5DigestAsHex(contentHashes.getBytes(UTF_8));
+  }
+
+  Optional<Showcase> showCaseFor(String showCaseId) {
+    return getShowCases().stream()
+      .filter(showCase -> showCase.getId().equals(showCaseId))
+      .findFirst();
+  }
+
+  /**
+   * Extracts all documentation and examples of this group and renders the markdown up front, so that the first request
+   * does not have to.
+   */
+  void prerender() {
+    getName();
+
+    if (hasDocumentation()) {
+      getDocumentationContent();
+    }
+
+    getShowCases().forEach(Showcase::prerender);
+  }
+
+  /**
+   * Copy of this group sharing the same resources and their already extracted and rendered contents, but without any
+   * sub groups, so that a new catalog can build its own hierarchy without changing the groups of the current catalog.
+   */
+  ComponentGroup withoutSubGroups() {
+    return new ComponentGroup(this);
+  }
+
+  List<Resource> getResources() {
+    return resources;
+  }
+
+  void addResourceContent(ResourceContent resourceContent) {
+    resourceContents.put(resourceContent.getResource(), resourceContent);
+  }
+
   void addSubGroup(ComponentGroup componentGroup) {
-    subGroups.add(componentGroup);
+    // sub groups are kept sorted, so that they do not have to be sorted on every access
+    int insertionPoint = binarySearch(subGroups, componentGroup, comparing(ComponentGroup::localId));
+    subGroups.add(insertionPoint < 0 ? -insertionPoint - 1 : insertionPoint, componentGroup);
   }
 
   boolean isRoot() {
@@ -113,11 +178,9 @@ public class ComponentGroup {
   }
 
   private Resource lookupDocumentationFor(Resource example) {
-    return resources.stream()
-      .filter(ComponentGroup::isDocumentation)
-      .filter(documentation -> baseName(documentation).equals(baseName(example)) || baseName(documentation).equals(stripSortingDigits(baseName(example))))
+    return resourceFor(baseName(example) + ".md")
+      .or(() -> resourceFor(stripSortingDigits(baseName(example)) + ".md"))
       .filter(documentation -> !isMainDocumentation(documentation))
-      .findFirst()
       .orElse(null);
   }
 
@@ -136,11 +199,11 @@ public class ComponentGroup {
     return resource.getFilename().equals(localId() + ".html");
   }
 
-  private static boolean isExample(Resource resource) {
+  static boolean isExample(Resource resource) {
     return resource.getFilename().endsWith(".html");
   }
 
-  private static boolean isDocumentation(Resource resource) {
+  static boolean isDocumentation(Resource resource) {
     return resource.getFilename().endsWith(".md");
   }
 
@@ -154,45 +217,24 @@ public class ComponentGroup {
     return resource.getFilename().substring(0, resource.getFilename().lastIndexOf("."));
   }
 
-  private boolean hasResource(String filename) {
-    return resources.stream().anyMatch(resource -> resource.getFilename().equals(filename));
-  }
-
-  private Optional<Resource> resourceFor(String filename) {
-    return resources.stream()
-      .filter(resource -> resource.getFilename().equals(filename))
-      .findFirst();
-  }
-
-  private static String render(String markdown) {
-    return HTML_RENDERER.render(PARSER.parse(markdown));
-  }
-
-  private static String extractResource(Resource resource) {
+  ResourceContent contentOf(Resource resource) {
     if (resource == null) {
       return null;
     }
 
-    try (Reader reader = new InputStreamReader(resource.getInputStream(), UTF_8)) {
-      return FileCopyUtils.copyToString(reader);
-    } catch (IOException e) {
-      throw new IllegalStateException("unable to extract resource '" + resource + "'");
-    }
+    return resourceContents.computeIfAbsent(resource, ResourceContent::new);
   }
 
-  public static String markdownToHTML(String markdown) {
-    return HTML_RENDERER.render(PARSER.parse(markdown));
+  private boolean hasResource(String filename) {
+    return resourcesByFilename.containsKey(filename);
   }
 
-  private static String titleFrom(Resource documentation) {
-    String mainDocumentationSource = extractResource(documentation);
-    List<String> allLines = readAllLines(mainDocumentationSource);
-
-    if (!allLines.isEmpty() && allLines.get(0).startsWith("# ")) {
-      return allLines.get(0).substring(2);
-    }
+  private Optional<Resource> resourceFor(String filename) {
+    return Optional.ofNullable(resourcesByFilename.get(filename));
+  }
 
-    return null;
+  public static String markdownToHTML(String markdown) {
+    return HTML_RENDERER.render(PARSER.parse(markdown));
   }
 
   private static String titleFromFilename(Resource example) {
@@ -212,41 +254,13 @@ public class ComponentGroup {
     return filename;
   }
 
-  private static String stripTitle(String markdownSource) {
-    if (markdownSource.startsWith("# ")) {
-      return skipLines(markdownSource, 1);
-    }
-
-    return markdownSource;
-  }
-
-  private static String skipLines(String markdownSource, int numberOfLinesToSkip) {
-    List<String> allLines = readAllLines(markdownSource);
-    return allLines.subList(numberOfLinesToSkip, allLines.size()).stream().collect(joining("\n"));
-  }
-
-  private static List<String> readAllLines(String markdownSource) {
-    try (BufferedReader reader = new BufferedReader(new StringReader(markdownSource))) {
-      List<String> result = new ArrayList<>();
-      String line;
-
-      while ((line = reader.readLine()) != null) {
-        result.add(line);
-      }
-
-      return result;
-    } catch (IOException e) {
-      throw new IllegalStateException("failed to read lines from string '" + markdownSource + "'", e);
-    }
-  }
-
   public static class Showcase {
 
     private final String id;
-    private final Resource example;
-    private final Resource documentation;
+    private final ResourceContent example;
+    private final ResourceContent documentation;
 
-    public Showcase(String id, Resource example, Resource documentation) {
+    Showcase(String id, ResourceContent example, ResourceContent documentation) {
       this.id = id;
       this.example = example;
       this.documentation = documentation;
@@ -258,14 +272,14 @@ public class ComponentGroup {
 
     public String getName() {
       if (documentation != null) {
-        String documentationTitle = titleFrom(documentation);
+        String documentationTitle = documentation.getTitle();
 
         if (documentationTitle != null) {
           return documentationTitle;
         }
       }
 
-      return titleFromFilename(example);
+      return titleFromFilename(example.getResource());
     }
 
     public boolean hasExample() {
@@ -273,7 +287,7 @@ public class ComponentGroup {
     }
 
     public String getExample() {
-      return extractResource(example);
+      return example.getSource();
     }
 
     public boolean hasDocumentation() {
@@ -281,7 +295,16 @@ public class ComponentGroup {
     }
 
     public String getDocumentation() {
-      return markdownToHTML(stripTitle(extractResource(documentation)));
+      return documentation.getRenderedContent();
+    }
+
+    private void prerender() {
+      getName();
+      getExample();
+
+      if (hasDocumentation()) {
+        getDocumentation();
+      }
     }
   }
 }
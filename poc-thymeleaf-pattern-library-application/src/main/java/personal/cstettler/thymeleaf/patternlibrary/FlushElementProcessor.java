@@ -0,0 +1,38 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import java.io.IOException;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.element.AbstractElementTagProcessor;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+import org.thymeleaf.standard.StandardDialect;
+
+/**
+ * Flushes everything rendered so far to the client, e.g. to send header and navigation of a page before rendering its
+ * (potentially large) content. Relies on the view writing directly to the response while processing (the default for
+ * Spring MVC), otherwise there is nothing to flush yet. The element itself is removed from the output.
+ */
+class FlushElementProcessor extends AbstractElementTagProcessor {
+
+  FlushElementProcessor(String dialectPrefix) {
+    super(HTML, dialectPrefix, "flush", true, null, false, StandardDialect.PROCESSOR_PRECEDENCE);
+  }
+
+  @Override
+  protected void doProcess(ITemplateContext context, IProcessableElementTag tag, IElementTagStructureHandler structureHandler) {
+    structureHandler.removeElement();
+
+    if (!(context instanceof IWebContext)) {
+      return;
+    }
+
+    try {
+      ((IWebContext) context).getResponse().flushBuffer();
+    } catch (IOException e) {
+      throw new IllegalStateException("unable to flush response", e);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Requests pages from the running application via HTTP, so that they are rendered exactly the same as when requested
+ * by a browser. Only usable once the web server is started.
+ */
+@Component
+class LocalPageClient {
+
+  private final Environment environment;
+  private final HttpClient httpClient;
+
+  LocalPageClient(Environment environment) {
+    this.environment = environment;
+    this.httpClient = HttpClient.newHttpClient();
+  }
+
+  String get(UriComponentsBuilder pathBuilder) {
+    URI uri = URI.create("http://localhost:" + environment.getProperty("local.server.port") + pathBuilder.encode().toUriString());
+
+    try {
+      HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString(UTF_8));
+
+      if (response.statusCode() != 200) {
+        throw new IllegalStateException("unable to get '" + uri + "', got status " + response.statusCode());
+      }
+
+      return response.body();
+    } catch (IOException e) {
+      throw new UncheckedIOException("unable to get '" + uri + "'", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while getting '" + uri + "'", e);
+    }
+  }
+}
@@ -1,187 +1,178 @@
 package personal.cstettler.thymeleaf.patternlibrary;
 
-import static java.util.Arrays.stream;
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.HttpHeaders.CACHE_CONTROL;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static personal.cstettler.thymeleaf.patternlibrary.ComponentCatalog.ROOT_GROUP_ID;
 
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import org.springframework.beans.factory.annotation.Autowired;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
-import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
+import org.springframework.web.util.ContentCachingResponseWrapper;
 import org.thymeleaf.ITemplateEngine;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
 
 @Controller
 public class PatternLibraryController {
 
-  private static final String ROOT_GROUP_ID = "/";
+  private static final String EXAMPLE_VIEW_NAME = "pattern-library/example-container";
+  private static final String EXAMPLE_CONTENT_TYPE = "text/html;charset=UTF-8";
 
   private final String applicationName;
-  private final String componentsResourcePath;
+  private final ComponentCatalogRepository componentCatalogRepository;
+  private final RenderedExampleCache renderedExampleCache;
+  private final RenderedNavigationCache renderedNavigationCache;
+  private final ThymeleafViewResolver thymeleafViewResolver;
+  private final boolean cachingEnabled;
+  private final String cacheControl;
+  private final String deploymentId;
 
-  private final Resource componentResourcesRoot;
-  private final ResourcePatternResolver resourcePatternResolver;
-
-  private ITemplateEngine templateEngine;
+  private final ITemplateEngine templateEngine;
 
   PatternLibraryController(
     @Value("${pattern-library.application-name}") String applicationName,
-    @Value("${pattern-library.components-resource-path}") String componentsResourcePath,
+    @Value("${spring.thymeleaf.cache:true}") boolean templateCachingEnabled,
+    @Value("${pattern-library.cache-control}") String cacheControl,
+    ComponentCatalogRepository componentCatalogRepository,
+    SharedResourcesHash sharedResourcesHash,
+    RenderedExampleCache renderedExampleCache,
+    RenderedNavigationCache renderedNavigationCache,
+    ThymeleafViewResolver thymeleafViewResolver,
     ITemplateEngine templateEngine
-  ) throws Exception {
+  ) {
     this.applicationName = applicationName;
-    this.componentsResourcePath = componentsResourcePath;
+    this.componentCatalogRepository = componentCatalogRepository;
+    this.renderedExampleCache = renderedExampleCache;
+    this.renderedNavigationCache = renderedNavigationCache;
+    this.thymeleafViewResolver = thymeleafViewResolver;
+    // without template caching (i.e. during development), templates may change without the catalog noticing
+    this.cachingEnabled = templateCachingEnabled;
+    this.cacheControl = cacheControl;
+    // templates of the pattern library and the components only change on deploy, the hash of their contents is the same
+    // on every replica and across restarts as long as they do not change
+    this.deploymentId = cachingEnabled ? sharedResourcesHash.get() : null;
     this.templateEngine = templateEngine;
-
-    resourcePatternResolver = new PathMatchingResourcePatternResolver(getClass().getClassLoader());
-    componentResourcesRoot = resourcePatternResolver.getResource(componentsResourcePath);
-
-    if (!componentResourcesRoot.exists()) {
-      throw new IllegalStateException("components resource path '" + componentsResourcePath + "' does not exist");
-    }
-
-    Resource indexDocumentationResource = resourcePatternResolver.getResource(componentsResourcePath + "/index.md");
-
-    if (!indexDocumentationResource.exists()) {
-      throw new IllegalStateException("no index.md found in folder " + uriFor(componentResourcesRoot));
-    }
-
-    // eagerly make application fail if resources are not ok
-    List<ComponentGroup> componentGroups = componentGroups();
-    componentGroupFor(componentGroups, ROOT_GROUP_ID).orElseThrow(
-      () -> new IllegalStateException("root component group not found")
-    );
   }
 
   @GetMapping("/")
-  public ModelAndView index(@RequestParam(name = "id", required = false) String groupId) {
-    List<ComponentGroup> componentGroups = componentGroups();
+  public ModelAndView index(@RequestParam(name = "id", required = false) String groupId, ServletWebRequest request) {
+    ComponentCatalog componentCatalog = componentCatalogRepository.getComponentCatalog();
+    Optional<ComponentGroup> componentGroup = componentCatalog.componentGroupFor(groupId != null ? groupId : ROOT_GROUP_ID);
 
-    return componentGroupFor(componentGroups, groupId != null ? groupId : ROOT_GROUP_ID)
-      .map(componentGroup -> new ModelAndView("pattern-library/component-group", model(componentGroups, componentGroup)))
-      .orElse(new ModelAndView("pattern-library/error", model(componentGroups, null)));
-  }
+    if (componentGroup.isPresent() && isNotModified(request, componentCatalog.getNavigationHash() + componentGroup.get().getContentHash())) {
+      return null;
+    }
 
-  @GetMapping("/example")
-  public ModelAndView example(@RequestParam String title, @RequestParam String templatePath) {
-    return new ModelAndView("pattern-library/example-container", model(title, templatePath));
+    return componentGroup
+      .map(group -> new ModelAndView("pattern-library/component-group", model(componentCatalog, group, request)))
+      .orElseGet(() -> new ModelAndView("pattern-library/error", model(componentCatalog, null, request)));
   }
 
-  private List<ComponentGroup> componentGroups() {
-    try {
-      Resource[] componentResources = resourcePatternResolver.getResources(componentsResourcePath + "/**/*");
-      List<ComponentGroup> componentGroups = collectComponentGroups(componentResourcesRoot, componentResources);
+  @GetMapping("/showcase")
+  public ModelAndView showcase(@RequestParam String id, ServletWebRequest request) {
+    ComponentCatalog componentCatalog = componentCatalogRepository.getComponentCatalog();
+    ComponentGroup.Showcase showCase = componentCatalog.showCaseFor(id)
+      .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "showcase '" + id + "' not found"));
 
-      return componentGroups;
-    } catch (IOException e) {
-      throw new IllegalStateException("failed to collect component groups from resources", e);
+    if (isNotModified(request, componentCatalog.componentGroupForExample(id).orElseThrow().getContentHash())) {
+      return null;
     }
-  }
 
-  private static ComponentGroup rootComponentGroupIn(List<ComponentGroup> componentGroups) {
-    return componentGroupFor(componentGroups, ROOT_GROUP_ID).orElseThrow(() -> new IllegalStateException("root component group not found"));
+    return new ModelAndView("pattern-library/showcase :: showcase", Map.of("showCase", showCase));
   }
 
-  private static Optional<ComponentGroup> componentGroupFor(List<ComponentGroup> componentGroups, String groupId) {
-    return componentGroups.stream()
-      .filter(componentGroup -> componentGroup.getId().equals(groupId))
-      .findFirst();
-  }
+  @GetMapping("/example")
+  public ModelAndView example(@RequestParam String title, @RequestParam String templatePath, ServletWebRequest request) {
+    ComponentCatalog componentCatalog = componentCatalogRepository.getComponentCatalog();
+    Optional<ComponentGroup> componentGroup = componentCatalog.componentGroupForExample(templatePath);
 
-  private Map<String, Object> model(List<ComponentGroup> componentGroups, ComponentGroup componentGroup) {
-    Map<String, Object> model = new HashMap<>();
-    model.put("applicationName", applicationName);
-    model.put("rootComponentGroup", rootComponentGroupIn(componentGroups));
-    model.put("componentGroup", componentGroup);
+    if (componentGroup.isEmpty() || !cachingEnabled) {
+      return new ModelAndView(EXAMPLE_VIEW_NAME, model(title, templatePath));
+    }
 
-    return model;
-  }
+    String contentHash = title + componentGroup.get().getContentHash();
 
-  private static Map<String, String> model(String title, String templatePath) {
-    return Map.of(
-      "title", title,
-      "templatePath", templatePath
-    );
-  }
+    if (isNotModified(request, contentHash)) {
+      return null;
+    }
 
-  private static List<ComponentGroup> collectComponentGroups(Resource componentResourcesRoot, Resource[] componentResources) {
-    List<ComponentGroup> componentGroups = buildComponentGroups(componentResourcesRoot, componentResources);
-    buildComponentGroupHierarchy(componentGroups);
+    byte[] renderedExample = renderedExampleCache.computeIfAbsent(
+      componentCatalog, templatePath + contentHash, () -> renderExample(title, templatePath, request)
+    );
 
-    return componentGroups;
+    return new ModelAndView((model, servletRequest, servletResponse) -> {
+      servletResponse.setContentType(EXAMPLE_CONTENT_TYPE);
+      servletResponse.getOutputStream().write(renderedExample);
+    });
   }
 
-  private static List<ComponentGroup> buildComponentGroups(Resource componentResourcesRoot, Resource[] componentResources) {
-    Map<String, List<Resource>> componentResourcesByGroupId = stream(componentResources)
-      .reduce(new HashMap<>(), (index, componentResource) -> {
-        String groupId = groupIdFor(componentResourcesRoot, componentResource);
-        index.computeIfAbsent(groupId, (key) -> new ArrayList<>()).add(componentResource);
-        return index;
-      }, (a, b) -> a);
-
-    return componentResourcesByGroupId.entrySet().stream()
-      .map(groupIdAndComponentResources -> new ComponentGroup(
-        groupIdAndComponentResources.getKey(),
-        groupIdAndComponentResources.getValue()
-      ))
-      .collect(toList());
-  }
+  @PostMapping("/refresh")
+  public String refresh() {
+    componentCatalogRepository.refresh();
 
-  private static void buildComponentGroupHierarchy(List<ComponentGroup> componentGroups) {
-    componentGroups.forEach(componentGroup -> findParent(componentGroups, componentGroup)
-      .ifPresent(parentComponentGroup -> parentComponentGroup.addSubGroup(componentGroup)));
+    return "redirect:/";
   }
 
-  private static String groupIdFor(Resource componentResourcesRoot, Resource componentResource) {
-    String relativePath = relativePathFor(componentResourcesRoot, componentResource);
+  private byte[] renderExample(String title, String templatePath, ServletWebRequest request) {
+    ContentCachingResponseWrapper response = new ContentCachingResponseWrapper(request.getResponse());
 
-    if (relativePath.endsWith(ROOT_GROUP_ID)) {
-      return relativePath;
+    try {
+      View view = thymeleafViewResolver.resolveViewName(EXAMPLE_VIEW_NAME, request.getLocale());
+      view.render(model(title, templatePath), request.getRequest(), response);
+    } catch (Exception e) {
+      throw new IllegalStateException("unable to render example '" + templatePath + "'", e);
     }
 
-    return relativePath.substring(0, relativePath.lastIndexOf(ROOT_GROUP_ID) + 1);
+    return response.getContentAsByteArray();
   }
 
-  private static String parentGroupIdFor(ComponentGroup componentGroup) {
-    String[] groupIdSegments = componentGroup.getId().split(ROOT_GROUP_ID);
+  private boolean isNotModified(ServletWebRequest request, String contentHash) {
+    if (!cachingEnabled) {
+      return false;
+    }
+
+    request.getResponse().setHeader(CACHE_CONTROL, cacheControl);
 
-    return stream(groupIdSegments)
-      .limit(groupIdSegments.length - 1)
-      .collect(joining(ROOT_GROUP_ID, "", ROOT_GROUP_ID));
+    return request.checkNotModified(DigestUtils.md5DigestAsHex((deploymentId + contentHash).getBytes(UTF_8)));
   }
 
-  private static Optional<ComponentGroup> findParent(List<ComponentGroup> componentGroups, ComponentGroup componentGroup) {
-    if (componentGroup.isRoot()) {
-      return Optional.empty();
-    }
+  private String renderNavigation(ComponentCatalog componentCatalog, ServletWebRequest request) {
+    WebContext context = new WebContext(
+      request.getRequest(), request.getResponse(), request.getRequest().getServletContext(), request.getLocale(),
+      Map.of("rootComponentGroup", componentCatalog.getRootComponentGroup())
+    );
 
-    return componentGroupFor(componentGroups, parentGroupIdFor(componentGroup));
+    return templateEngine.process("pattern-library/navigation", Set.of("navigation"), context);
   }
 
-  private static String relativePathFor(Resource componentResourcesRoot, Resource componentResource) {
-    String componentResourcesRootUri = uriFor(componentResourcesRoot);
-    String componentResourcesUri = uriFor(componentResource);
+  private Map<String, Object> model(ComponentCatalog componentCatalog, ComponentGroup componentGroup, ServletWebRequest request) {
+    Map<String, Object> model = new HashMap<>();
+    model.put("applicationName", applicationName);
+    model.put("navigation", cachingEnabled
+      ? renderedNavigationCache.computeIfAbsent(componentCatalog, () -> renderNavigation(componentCatalog, request))
+      : renderNavigation(componentCatalog, request)
+    );
+    model.put("componentGroup", componentGroup);
 
-    return componentResourcesUri.substring(componentResourcesRootUri.length());
+    return model;
   }
 
-  private static String uriFor(Resource resource) {
-    try {
-      return resource.getURI().toString();
-    } catch (IOException e) {
-      throw new IllegalStateException("unable to get uri for resource '" + resource + "'", e);
-    }
+  private static Map<String, String> model(String title, String templatePath) {
+    return Map.of(
+      "title", title,
+      "templatePath", templatePath
+    );
   }
 }
@@ -0,0 +1,33 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.standard.StandardDialect;
+import org.thymeleaf.standard.processor.StandardXmlNsTagProcessor;
+
+/**
+ * Processors used by the pattern library pages themselves (as opposed to the components shown in the pattern library).
+ */
+@Component
+class PatternLibraryDialect extends AbstractProcessorDialect {
+
+  private static final String DIALECT_PREFIX = "pattern-library";
+
+  PatternLibraryDialect() {
+    super("Pattern Library Dialect", DIALECT_PREFIX, StandardDialect.PROCESSOR_PRECEDENCE);
+  }
+
+  @Override
+  public Set<IProcessor> getProcessors(String dialectPrefix) {
+    Set<IProcessor> processors = new HashSet<>();
+    processors.add(new StandardXmlNsTagProcessor(HTML, dialectPrefix));
+    processors.add(new FlushElementProcessor(dialectPrefix));
+
+    return processors;
+  }
+}
@@ -0,0 +1,278 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static personal.cstettler.thymeleaf.patternlibrary.ComponentCatalog.uriFor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Exports the whole pattern library (all component group pages, showcases and examples plus the static assets) as
+ * static HTML files into the configured export directory, the application is stopped afterwards (see
+ * {@link PocThymeleafPatternLibraryApplication#main(String[])}). Pages are fetched from the running application, so they
+ * are exactly the same as when served, only links are rewritten to the exported files. Component groups are exported in
+ * parallel and only if their content hash changed since the last export. The hash also covers the navigation and all
+ * templates and static assets shared by the pages, so that changes to the layout or the components export all groups
+ * again. The files exported per group are recorded as well, so that files of removed groups and showcases are deleted.
+ */
+@Component
+@ConditionalOnProperty("pattern-library.export-directory")
+class PatternLibraryExporter implements ApplicationRunner {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PatternLibraryExporter.class);
+
+  private static final String MANIFEST_FILENAME = ".export-manifest.properties";
+  private static final String MANIFEST_HASH_PREFIX = "hash:";
+  private static final String MANIFEST_FILES_PREFIX = "files:";
+  private static final String MANIFEST_FILES_SEPARATOR = "\n";
+  private static final String STATIC_RESOURCES_PATH = "classpath*:/static/";
+
+  private static final Pattern GROUP_LINK = Pattern.compile("\"/\\?id=([^\"&]*)\"");
+  private static final Pattern SHOWCASE_LINK = Pattern.compile("\"/showcase\\?id=([^\"&]*)\"");
+  private static final Pattern EXAMPLE_LINK = Pattern.compile("\"/example\\?title=[^\"&]*&amp;templatePath=([^\"&]*)\"");
+
+  private final Path exportDirectory;
+  private final ComponentCatalogRepository componentCatalogRepository;
+  private final SharedResourcesHash sharedResourcesHash;
+  private final LocalPageClient localPageClient;
+  private final ResourcePatternResolver resourcePatternResolver;
+
+  PatternLibraryExporter(
+    @Value("${pattern-library.export-directory}") String exportDirectory,
+    ComponentCatalogRepository componentCatalogRepository,
+    SharedResourcesHash sharedResourcesHash,
+    LocalPageClient localPageClient
+  ) {
+    this.exportDirectory = Paths.get(exportDirectory);
+    this.componentCatalogRepository = componentCatalogRepository;
+    this.sharedResourcesHash = sharedResourcesHash;
+    this.localPageClient = localPageClient;
+    this.resourcePatternResolver = new PathMatchingResourcePatternResolver(getClass().getClassLoader());
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    long start = System.currentTimeMillis();
+    ComponentCatalog componentCatalog = componentCatalogRepository.getComponentCatalog();
+    Properties manifest = readManifest();
+    Properties updatedManifest = new Properties();
+
+    // every page contains the navigation and depends on the shared templates and assets, so all groups have to be
+    // exported again if any of them changes
+    String sharedHash = sharedResourcesHash.get() + componentCatalog.getNavigationHash();
+    componentCatalog.getComponentGroups().forEach(componentGroup -> updatedManifest.setProperty(
+      MANIFEST_HASH_PREFIX + componentGroup.getId(), DigestUtils.md5DigestAsHex((sharedHash + componentGroup.getContentHash()).getBytes(UTF_8))
+    ));
+
+    List<ComponentGroup> changedComponentGroups = componentCatalog.getComponentGroups().stream()
+      .filter(componentGroup -> !updatedManifest.getProperty(MANIFEST_HASH_PREFIX + componentGroup.getId())
+        .equals(manifest.getProperty(MANIFEST_HASH_PREFIX + componentGroup.getId())))
+      .collect(toList());
+
+    Map<String, List<String>> exportedFilesByGroupId = changedComponentGroups.parallelStream()
+      .collect(toMap(ComponentGroup::getId, this::export));
+
+    // unchanged groups still consist of the files exported last time
+    componentCatalog.getComponentGroups().forEach(componentGroup -> updatedManifest.setProperty(
+      MANIFEST_FILES_PREFIX + componentGroup.getId(), exportedFilesByGroupId.containsKey(componentGroup.getId())
+        ? String.join(MANIFEST_FILES_SEPARATOR, exportedFilesByGroupId.get(componentGroup.getId()))
+        : manifest.getProperty(MANIFEST_FILES_PREFIX + componentGroup.getId(), "")
+    ));
+
+    int deletedFiles = deleteFilesNoLongerExported(manifest, updatedManifest);
+    exportStaticResources();
+    writeManifest(updatedManifest);
+
+    LOGGER.info(
+      "exported {} of {} component groups to '{}' in {} ms (deleted {} files no longer exported)",
+      changedComponentGroups.size(), componentCatalog.getComponentGroups().size(), exportDirectory, System.currentTimeMillis() - start,
+      deletedFiles
+    );
+  }
+
+  private List<String> export(ComponentGroup componentGroup) {
+    List<String> exportedFiles = new ArrayList<>();
+    exportedFiles.add(exportPage(
+      UriComponentsBuilder.fromPath("/").queryParam("id", componentGroup.getId()),
+      componentGroup.getId().substring(1) + "index.html"
+    ));
+
+    if (componentGroup.hasExample()) {
+      exportedFiles.add(exportExample(componentGroup.getName(), componentGroup.getExamplePath()));
+    }
+
+    componentGroup.getShowCases().forEach(showCase -> {
+      exportedFiles.add(exportPage(UriComponentsBuilder.fromPath("/showcase").queryParam("id", showCase.getId()), "showcase" + showCase.getId() + ".html"));
+      exportedFiles.add(exportExample(showCase.getName(), showCase.getId()));
+    });
+
+    return exportedFiles;
+  }
+
+  private String exportExample(String title, String templatePath) {
+    return exportPage(
+      UriComponentsBuilder.fromPath("/example").queryParam("title", title).queryParam("templatePath", templatePath),
+      "example" + templatePath + ".html"
+    );
+  }
+
+  private String exportPage(UriComponentsBuilder pathBuilder, String filename) {
+    String html = localPageClient.get(pathBuilder);
+
+    try {
+      write(exportDirectory.resolve(filename), withStaticLinks(html));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return filename;
+  }
+
+  /**
+   * Deletes all files of the previous export that are not part of the current export anymore (files of removed groups
+   * and showcases), including directories left empty.
+   */
+  private int deleteFilesNoLongerExported(Properties manifest, Properties updatedManifest) {
+    Set<String> exportedFiles = exportedFilesOf(updatedManifest);
+    Set<String> filesNoLongerExported = exportedFilesOf(manifest);
+    filesNoLongerExported.removeAll(exportedFiles);
+
+    try {
+      for (String file : filesNoLongerExported) {
+        Path path = exportDirectory.resolve(file);
+        Files.deleteIfExists(path);
+
+        for (Path directory = path.getParent(); !directory.equals(exportDirectory) && isEmptyDirectory(directory); directory = directory.getParent()) {
+          Files.delete(directory);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return filesNoLongerExported.size();
+  }
+
+  private void exportStaticResources() {
+    try {
+      for (Resource staticResourcesRoot : resourcePatternResolver.getResources(STATIC_RESOURCES_PATH)) {
+        String staticResourcesRootUri = uriFor(staticResourcesRoot);
+
+        for (Resource staticResource : resourcePatternResolver.getResources(staticResourcesRootUri + "**/*")) {
+          if (staticResource.isReadable()) {
+            copy(staticResource, exportDirectory.resolve(uriFor(staticResource).substring(staticResourcesRootUri.length())));
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Properties readManifest() {
+    Properties manifest = new Properties();
+    Path manifestFile = exportDirectory.resolve(MANIFEST_FILENAME);
+
+    if (Files.exists(manifestFile)) {
+      try (InputStream inputStream = Files.newInputStream(manifestFile)) {
+        manifest.load(inputStream);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return manifest;
+  }
+
+  private void writeManifest(Properties manifest) {
+    try {
+      Files.createDirectories(exportDirectory);
+
+      try (OutputStream outputStream = Files.newOutputStream(exportDirectory.resolve(MANIFEST_FILENAME))) {
+        manifest.store(outputStream, "content hashes and files of exported component groups");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Set<String> exportedFilesOf(Properties manifest) {
+    Set<String> exportedFiles = new HashSet<>();
+
+    for (String key : manifest.stringPropertyNames()) {
+      if (key.startsWith(MANIFEST_FILES_PREFIX) && !manifest.getProperty(key).isEmpty()) {
+        exportedFiles.addAll(asList(manifest.getProperty(key).split(MANIFEST_FILES_SEPARATOR)));
+      }
+    }
+
+    return exportedFiles;
+  }
+
+  private static boolean isEmptyDirectory(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return false;
+    }
+
+    try (Stream<Path> entries = Files.list(directory)) {
+      return entries.findAny().isEmpty();
+    }
+  }
+
+  private static String withStaticLinks(String html) {
+    String result = replaceAll(GROUP_LINK, html, groupId -> groupId + "index.html");
+    result = replaceAll(SHOWCASE_LINK, result, showCaseId -> "/showcase" + showCaseId + ".html");
+
+    return replaceAll(EXAMPLE_LINK, result, templatePath -> "/example" + templatePath + ".html");
+  }
+
+  private static String replaceAll(Pattern linkPattern, String html, UnaryOperator<String> staticLink) {
+    return linkPattern.matcher(html).replaceAll(match -> Matcher.quoteReplacement(
+      "\"" + staticLink.apply(URLDecoder.decode(match.group(1), UTF_8)) + "\""
+    ));
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+  }
+
+  private static void copy(Resource resource, Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+
+    try (InputStream inputStream = resource.getInputStream()) {
+      Files.copy(inputStream, file, REPLACE_EXISTING);
+    }
+  }
+}
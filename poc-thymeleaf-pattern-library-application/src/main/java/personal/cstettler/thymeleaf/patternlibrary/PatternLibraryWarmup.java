@@ -0,0 +1,138 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.thymeleaf.ITemplateEngine;
+import personal.cstettler.thymeleaf.dialect.ComponentDialect;
+
+/**
+ * Warms up the pattern library once the application is started, so that templates, component fragments and
+ * expressions are parsed and the rendered pages are cached before the first real request. The fragments of all
+ * registered components are loaded up front (including components not used by any example), then every component
+ * group page and every example of the component catalog is requested from the running application on a bounded thread
+ * pool. As Spring Boot only reports the application as ready to accept traffic after all {@link ApplicationReadyEvent}
+ * listeners completed, readiness waits for the warmup. The warmup is best effort: fragments or pages failing to render
+ * are logged, but do not prevent the application from becoming ready.
+ */
+@Component
+@ConditionalOnProperty(name = "pattern-library.warmup-enabled", havingValue = "true")
+class PatternLibraryWarmup {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PatternLibraryWarmup.class);
+
+  private final int threads;
+  private final ComponentCatalogRepository componentCatalogRepository;
+  private final ComponentDialect componentDialect;
+  private final ITemplateEngine templateEngine;
+  private final LocalPageClient localPageClient;
+
+  PatternLibraryWarmup(
+    @Value("${pattern-library.warmup-threads}") int threads,
+    ComponentCatalogRepository componentCatalogRepository,
+    ComponentDialect componentDialect,
+    ITemplateEngine templateEngine,
+    LocalPageClient localPageClient
+  ) {
+    this.threads = threads;
+    this.componentCatalogRepository = componentCatalogRepository;
+    this.componentDialect = componentDialect;
+    this.templateEngine = templateEngine;
+    this.localPageClient = localPageClient;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmup() {
+    long start = System.currentTimeMillis();
+    loadComponentFragments();
+
+    List<UriComponentsBuilder> pages = pagesOf(componentCatalogRepository.getComponentCatalog());
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    AtomicInteger failedPages = new AtomicInteger();
+
+    try {
+      List<Future<?>> renderings = pages.stream()
+        .map(page -> executorService.submit(() -> {
+          if (!render(page)) {
+            failedPages.incrementAndGet();
+          }
+        }))
+        .collect(toList());
+
+      for (Future<?> rendering : renderings) {
+        rendering.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("interrupted while warming up, continuing without warmup");
+      return;
+    } catch (ExecutionException e) {
+      LOGGER.warn("unable to warm up, continuing without warmup", e.getCause());
+      return;
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    LOGGER.info(
+      "warmed up {} components and {} of {} pages on {} threads in {} ms",
+      componentDialect.getComponentRegistry().getComponentNames().size(), pages.size() - failedPages.get(), pages.size(), threads,
+      System.currentTimeMillis() - start
+    );
+  }
+
+  private void loadComponentFragments() {
+    try {
+      componentDialect.warmup(templateEngine);
+    } catch (RuntimeException e) {
+      LOGGER.warn("unable to load component fragments, components are loaded on first usage", e);
+    }
+  }
+
+  private boolean render(UriComponentsBuilder page) {
+    try {
+      localPageClient.get(page);
+
+      return true;
+    } catch (RuntimeException e) {
+      LOGGER.warn("unable to warm up page '{}'", page.toUriString(), e);
+
+      return false;
+    }
+  }
+
+  private static List<UriComponentsBuilder> pagesOf(ComponentCatalog componentCatalog) {
+    // component group pages and the examples they (and their showcases) request
+    List<UriComponentsBuilder> pages = new ArrayList<>();
+    componentCatalog.getComponentGroups().forEach(componentGroup -> {
+      pages.add(UriComponentsBuilder.fromPath("/").queryParam("id", componentGroup.getId()));
+
+      if (componentGroup.hasExample()) {
+        pages.add(examplePage(componentGroup.getName(), componentGroup.getExamplePath()));
+      }
+
+      componentGroup.getShowCases().stream()
+        .filter(ComponentGroup.Showcase::hasExample)
+        .forEach(showCase -> pages.add(examplePage(showCase.getName(), showCase.getId())));
+    });
+
+    return pages;
+  }
+
+  private static UriComponentsBuilder examplePage(String title, String templatePath) {
+    return UriComponentsBuilder.fromPath("/example").queryParam("title", title).queryParam("templatePath", templatePath);
+  }
+}
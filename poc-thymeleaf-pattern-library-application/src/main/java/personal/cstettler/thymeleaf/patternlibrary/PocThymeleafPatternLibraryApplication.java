@@ -1,19 +1,62 @@
 package personal.cstettler.thymeleaf.patternlibrary;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.thymeleaf.spring5.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.templateresolver.ITemplateResolver;
 import personal.cstettler.thymeleaf.dialect.ComponentDialect;
+import personal.cstettler.thymeleaf.dialect.ComponentMetrics;
+import personal.cstettler.thymeleaf.dialect.MicrometerComponentMetrics;
 
 @SpringBootApplication
 public class PocThymeleafPatternLibraryApplication {
 
   public static void main(String[] args) {
-    SpringApplication.run(PocThymeleafPatternLibraryApplication.class, args);
+    ConfigurableApplicationContext applicationContext = SpringApplication.run(PocThymeleafPatternLibraryApplication.class, args);
+
+    // exporting is a one-off run, the exporter has completed once the application is started
+    if (!applicationContext.getBeansOfType(PatternLibraryExporter.class).isEmpty()) {
+      System.exit(SpringApplication.exit(applicationContext));
+    }
+  }
+
+  @Bean
+  public ComponentDialect componentDialect(
+    @Value("${pattern-library.component-metrics-enabled}") boolean componentMetricsEnabled,
+    @Value("${pattern-library.component-render-cache-maximum-size}") int componentRenderCacheMaximumSize,
+    @Value("${pattern-library.component-render-cache-time-to-live}") Duration componentRenderCacheTimeToLive,
+    MeterRegistry meterRegistry
+  ) {
+    return new ComponentDialect(componentMetricsEnabled ? new MicrometerComponentMetrics(meterRegistry) : ComponentMetrics.NONE)
+      .enableRenderCache(componentRenderCacheMaximumSize, componentRenderCacheTimeToLive);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "pattern-library.compiled-templates-enabled", havingValue = "true")
+  public SpringResourceTemplateResolver compiledTemplateResolver(@Value("${spring.thymeleaf.cache:true}") boolean cacheable) {
+    // templates with pre-expanded components take precedence, only enabled if built with the 'production' profile so
+    // that compiled templates left over from an earlier production build do not shadow templates edited during development
+    SpringResourceTemplateResolver compiledTemplateResolver = new SpringResourceTemplateResolver();
+    compiledTemplateResolver.setPrefix("classpath:/compiled-templates/");
+    compiledTemplateResolver.setSuffix(".html");
+    compiledTemplateResolver.setCharacterEncoding("UTF-8");
+    compiledTemplateResolver.setCheckExistence(true);
+    compiledTemplateResolver.setCacheable(cacheable);
+    compiledTemplateResolver.setOrder(0);
+
+    return compiledTemplateResolver;
   }
 
   @Bean
-  public ComponentDialect componentDialect() {
-    return new ComponentDialect();
+  @ConditionalOnProperty(name = "pattern-library.warmup-enabled", havingValue = "true")
+  public ITemplateResolver warmupTemplateResolver() {
+    // only resolves the template loading the fragments of all components, see PatternLibraryWarmup
+    return ComponentDialect.warmupTemplateResolver();
   }
 }
@@ -0,0 +1,86 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Least recently used cache of rendered examples, bounded by the total size of the rendered HTML. Only valid for one
+ * version of the component catalog, all entries are evicted as soon as an entry of another catalog is requested. Hits,
+ * misses and the current size are published via Micrometer under {@code pattern-library.example-cache}.
+ */
+@Component
+class RenderedExampleCache {
+
+  private final long maximumSizeInBytes;
+  private final Map<String, byte[]> renderedExamples;
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+
+  private ComponentCatalog componentCatalog;
+  private long sizeInBytes;
+
+  RenderedExampleCache(@Value("${pattern-library.example-cache-maximum-size-in-bytes}") long maximumSizeInBytes, MeterRegistry meterRegistry) {
+    this.maximumSizeInBytes = maximumSizeInBytes;
+    this.renderedExamples = new LinkedHashMap<>(16, 0.75f, true);
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+
+    FunctionCounter.builder("pattern-library.example-cache", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+    FunctionCounter.builder("pattern-library.example-cache", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+    Gauge.builder("pattern-library.example-cache.size", this, RenderedExampleCache::sizeInBytes).baseUnit("bytes").register(meterRegistry);
+  }
+
+  byte[] computeIfAbsent(ComponentCatalog componentCatalog, String key, Supplier<byte[]> renderer) {
+    byte[] renderedExample = lookup(componentCatalog, key);
+
+    if (renderedExample != null) {
+      hits.incrementAndGet();
+      return renderedExample;
+    }
+
+    misses.incrementAndGet();
+    // rendered without holding the lock, concurrent misses of the same example may render it more than once
+    renderedExample = renderer.get();
+    store(componentCatalog, key, renderedExample);
+
+    return renderedExample;
+  }
+
+  synchronized long sizeInBytes() {
+    return sizeInBytes;
+  }
+
+  private synchronized byte[] lookup(ComponentCatalog componentCatalog, String key) {
+    if (this.componentCatalog != componentCatalog) {
+      renderedExamples.clear();
+      sizeInBytes = 0;
+      this.componentCatalog = componentCatalog;
+    }
+
+    return renderedExamples.get(key);
+  }
+
+  private synchronized void store(ComponentCatalog componentCatalog, String key, byte[] renderedExample) {
+    if (this.componentCatalog != componentCatalog || renderedExample.length > maximumSizeInBytes) {
+      return;
+    }
+
+    byte[] previousRenderedExample = renderedExamples.put(key, renderedExample);
+    sizeInBytes += renderedExample.length - (previousRenderedExample != null ? previousRenderedExample.length : 0);
+
+    Iterator<byte[]> leastRecentlyUsed = renderedExamples.values().iterator();
+
+    while (sizeInBytes > maximumSizeInBytes) {
+      sizeInBytes -= leastRecentlyUsed.next().length;
+      leastRecentlyUsed.remove();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the navigation rendered for the current version of the component catalog, as it is the same on every page. It
+ * is rendered again as soon as it is requested for another catalog.
+ */
+@Component
+class RenderedNavigationCache {
+
+  private volatile RenderedNavigation renderedNavigation;
+
+  String computeIfAbsent(ComponentCatalog componentCatalog, Supplier<String> renderer) {
+    RenderedNavigation currentRenderedNavigation = renderedNavigation;
+
+    if (currentRenderedNavigation == null || currentRenderedNavigation.componentCatalog != componentCatalog) {
+      currentRenderedNavigation = new RenderedNavigation(componentCatalog, renderer.get());
+      renderedNavigation = currentRenderedNavigation;
+    }
+
+    return currentRenderedNavigation.html;
+  }
+
+  private static class RenderedNavigation {
+
+    private final ComponentCatalog componentCatalog;
+    private final String html;
+
+    private RenderedNavigation(ComponentCatalog componentCatalog, String html) {
+      this.componentCatalog = componentCatalog;
+      this.html = html;
+    }
+  }
+}
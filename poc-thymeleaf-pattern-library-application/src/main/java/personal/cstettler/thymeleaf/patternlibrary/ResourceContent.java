@@ -0,0 +1,180 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.core.io.Resource;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Lazily extracted source of a component resource, plus its title and rendered HTML in case of markdown documentation.
+ * All values are computed at most once per last-modified time of the resource. The last-modified time is only checked
+ * for resources in the file system, as resources within a jar file cannot change.
+ */
+class ResourceContent {
+
+  private final Resource resource;
+  private final boolean modifiable;
+
+  private volatile Snapshot snapshot;
+
+  ResourceContent(Resource resource) {
+    this.resource = resource;
+    this.modifiable = resource.isFile();
+  }
+
+  /**
+   * Content extracted in advance (e.g. at build time), the resource itself is never read.
+   */
+  ResourceContent(Resource resource, String source, String title, String renderedContent) {
+    this.resource = resource;
+    this.modifiable = false;
+    this.snapshot = new Snapshot(0, source, title, renderedContent);
+  }
+
+  Resource getResource() {
+    return resource;
+  }
+
+  String getSource() {
+    return snapshot().source;
+  }
+
+  String getTitle() {
+    return snapshot().title();
+  }
+
+  String getRenderedContent() {
+    return snapshot().renderedContent();
+  }
+
+  /**
+   * Hash of the source, changes whenever the source changes.
+   */
+  String getContentHash() {
+    return snapshot().contentHash();
+  }
+
+  private Snapshot snapshot() {
+    Snapshot currentSnapshot = snapshot;
+    long lastModified = modifiable ? lastModified() : 0;
+
+    if (currentSnapshot == null || currentSnapshot.lastModified != lastModified) {
+      currentSnapshot = new Snapshot(lastModified, extractResource(resource));
+      snapshot = currentSnapshot;
+    }
+
+    return currentSnapshot;
+  }
+
+  private long lastModified() {
+    try {
+      return resource.lastModified();
+    } catch (IOException e) {
+      throw new IllegalStateException("unable to get last modified time of resource '" + resource + "'", e);
+    }
+  }
+
+  private static String extractResource(Resource resource) {
+    try (Reader reader = new InputStreamReader(resource.getInputStream(), UTF_8)) {
+      return FileCopyUtils.copyToString(reader);
+    } catch (IOException e) {
+      throw new IllegalStateException("unable to extract resource '" + resource + "'");
+    }
+  }
+
+  private static String titleFrom(String markdownSource) {
+    List<String> allLines = readAllLines(markdownSource);
+
+    if (!allLines.isEmpty() && allLines.get(0).startsWith("# ")) {
+      return allLines.get(0).substring(2);
+    }
+
+    return null;
+  }
+
+  private static String stripTitle(String markdownSource) {
+    if (markdownSource.startsWith("# ")) {
+      return skipLines(markdownSource, 1);
+    }
+
+    return markdownSource;
+  }
+
+  private static String skipLines(String markdownSource, int numberOfLinesToSkip) {
+    List<String> allLines = readAllLines(markdownSource);
+    return allLines.subList(numberOfLinesToSkip, allLines.size()).stream().collect(joining("\n"));
+  }
+
+  private static List<String> readAllLines(String markdownSource) {
+    try (BufferedReader reader = new BufferedReader(new StringReader(markdownSource))) {
+      List<String> result = new ArrayList<>();
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        result.add(line);
+      }
+
+      return result;
+    } catch (IOException e) {
+      throw new IllegalStateException("failed to read lines from string '" + markdownSource + "'", e);
+    }
+  }
+
+  private static class Snapshot {
+
+    private final long lastModified;
+    private final String source;
+
+    private volatile boolean titleExtracted;
+    private volatile String title;
+    private volatile String renderedContent;
+    private volatile String contentHash;
+
+    private Snapshot(long lastModified, String source) {
+      this.lastModified = lastModified;
+      this.source = source;
+    }
+
+    private Snapshot(long lastModified, String source, String title, String renderedContent) {
+      this.lastModified = lastModified;
+      this.source = source;
+      this.titleExtracted = true;
+      this.title = title;
+      this.renderedContent = renderedContent;
+    }
+
+    String title() {
+      if (!titleExtracted) {
+        title = titleFrom(source);
+        titleExtracted = true;
+      }
+
+      return title;
+    }
+
+    String renderedContent() {
+      if (renderedContent == null) {
+        renderedContent = ComponentGroup.markdownToHTML(stripTitle(source));
+      }
+
+      return renderedContent;
+    }
+
+    String contentHash() {
+      if (contentHash == null) {
+        contentHash = DigestUtils.md5DigestAsHex(source.getBytes(UTF_8));
+      }
+
+      return contentHash;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static personal.cstettler.thymeleaf.patternlibrary.ComponentCatalog.uriFor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hash over the templates and static assets every page depends on besides the documentation and examples of its
+ * component group (see {@link ComponentGroup#getContentHash()}), i.e. the pattern library layout, the component
+ * fragments and the assets. Resources are hashed by their path relative to the templates or static folder, so that the
+ * hash is the same for the same contents independent of where the application is deployed. Computed at build time into
+ * the catalog index if available (see {@link ComponentCatalogIndex}), otherwise once on first use, as these resources
+ * only change on deploy.
+ */
+@Component
+class SharedResourcesHash {
+
+  private static final String[] RESOURCE_ROOT_PATHS = {"classpath*:/templates/", "classpath*:/static/"};
+
+  private final ComponentCatalogRepository componentCatalogRepository;
+  private final String componentResourcesRootUri;
+  private final ResourcePatternResolver resourcePatternResolver;
+
+  private volatile String hash;
+
+  SharedResourcesHash(ComponentCatalogRepository componentCatalogRepository) {
+    this.componentCatalogRepository = componentCatalogRepository;
+    this.componentResourcesRootUri = uriFor(componentCatalogRepository.getComponentResourcesRoot());
+    this.resourcePatternResolver = new PathMatchingResourcePatternResolver(getClass().getClassLoader());
+  }
+
+  String get() {
+    String currentHash = hash;
+
+    if (currentHash == null) {
+      currentHash = componentCatalogRepository.getIndexedSharedResourcesHash().orElseGet(this::computeHash);
+      hash = currentHash;
+    }
+
+    return currentHash;
+  }
+
+  private String computeHash() {
+    // sorted by path, so that the order of the resources on the classpath does not matter
+    Map<String, Resource> resourcesByPath = new TreeMap<>();
+
+    try {
+      for (String resourceRootPath : RESOURCE_ROOT_PATHS) {
+        for (Resource resourceRoot : resourcePatternResolver.getResources(resourceRootPath)) {
+          String resourceRootUri = uriFor(resourceRoot);
+
+          for (Resource resource : resourcePatternResolver.getResources(resourceRootUri + "**/*")) {
+            String resourceUri = uriFor(resource);
+
+            // documentation and examples are hashed per component group
+            if (resource.isReadable() && !resourceUri.startsWith(componentResourcesRootUri)) {
+              resourcesByPath.put(resourceRootPath + resourceUri.substring(resourceRootUri.length()), resource);
+            }
+          }
+        }
+      }
+
+      // resources are streamed into the digest one by one instead of being held in memory all at once
+      MessageDigest messageDigest = md5MessageDigest();
+
+      for (Map.Entry<String, Resource> resource : resourcesByPath.entrySet()) {
+        messageDigest.update((resource.getKey() + "\n").getBytes(UTF_8));
+
+        try (InputStream inputStream = new DigestInputStream(resource.getValue().getInputStream(), messageDigest)) {
+          inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+      }
+
+      return HexFormat.of().formatHex(messageDigest.digest());
+    } catch (IOException e) {
+      throw new UncheckedIOException("unable to hash templates and static resources", e);
+    }
+  }
+
+  private static MessageDigest md5MessageDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 not supported", e);
+    }
+  }
+}
@@ -17,3 +17,28 @@ function updateFrameHeightToContent(frame) {
   const height = frame.contentWindow.document.body.scrollHeight;
   frame.style.height = height + "px";
 }
+
+const navigation = document.querySelector("nav[data-active-group-id]");
+
+if (navigation) {
+  navigation.querySelector(`a[data-group-id="${navigation.dataset.activeGroupId}"]`)?.classList.add("active");
+}
+
+const showcaseObserver = new IntersectionObserver((entries) => {
+  entries
+    .filter((entry) => entry.isIntersecting)
+    .forEach((entry) => {
+      showcaseObserver.unobserve(entry.target);
+      loadShowcase(entry.target);
+    });
+}, {
+  root: document.querySelector("main > section"),
+  rootMargin: "200px"
+});
+
+document.querySelectorAll("[data-showcase-url]").forEach((placeholder) => showcaseObserver.observe(placeholder));
+
+async function loadShowcase(placeholder) {
+  const response = await fetch(placeholder.dataset.showcaseUrl);
+  placeholder.innerHTML = await response.text();
+}
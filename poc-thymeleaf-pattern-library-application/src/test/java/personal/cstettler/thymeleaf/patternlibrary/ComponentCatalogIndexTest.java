@@ -0,0 +1,60 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+class ComponentCatalogIndexTest {
+
+  @Test
+  void read_writtenIndex_restoresCatalogWithoutReadingResources(@TempDir Path componentsDirectory, @TempDir Path indexDirectory) throws IOException {
+    write(componentsDirectory.resolve("index.md"), "# Library");
+    write(componentsDirectory.resolve("buttons/buttons.md"), "# Buttons\nAll buttons");
+    write(componentsDirectory.resolve("buttons/01-primary.html"), "<button></button>");
+    write(componentsDirectory.resolve("buttons/primary.md"), "# Primary Button");
+    Path indexFile = indexDirectory.resolve("index.json");
+    ComponentCatalogIndex.main(new String[] {componentsDirectory.toString(), indexFile.toString()});
+    Files.delete(componentsDirectory.resolve("buttons/01-primary.html"));
+
+    ComponentCatalog componentCatalog = ComponentCatalogIndex.read(
+      new FileSystemResource(indexFile), "file:" + componentsDirectory, new PathMatchingResourcePatternResolver()
+    ).getComponentCatalog();
+
+    ComponentGroup componentGroup = componentCatalog.componentGroupFor("/buttons/").orElseThrow();
+    List<ComponentGroup.Showcase> showCases = componentGroup.getShowCases();
+    assertEquals("Buttons", componentGroup.getName());
+    assertEquals("<p>All buttons</p>\n", componentGroup.getDocumentationContent());
+    assertEquals(List.of("Primary Button"), showCases.stream().map(ComponentGroup.Showcase::getName).collect(toList()));
+    assertEquals("<button></button>", showCases.get(0).getExample());
+    assertEquals(List.of(componentGroup), componentCatalog.getRootComponentGroup().getSubGroups());
+  }
+
+  @Test
+  void read_writtenIndex_restoresSharedResourcesHash(@TempDir Path componentsDirectory, @TempDir Path indexDirectory) throws IOException {
+    write(componentsDirectory.resolve("index.md"), "# Library");
+    Path indexFile = indexDirectory.resolve("index.json");
+    ComponentCatalogIndex.main(new String[] {componentsDirectory.toString(), indexFile.toString()});
+
+    ComponentCatalogIndex componentCatalogIndex = ComponentCatalogIndex.read(
+      new FileSystemResource(indexFile), "file:" + componentsDirectory, new PathMatchingResourcePatternResolver()
+    );
+
+    assertEquals(
+      new SharedResourcesHash(new ComponentCatalogRepository("file:" + componentsDirectory)).get(),
+      componentCatalogIndex.getSharedResourcesHash()
+    );
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+  }
+}
@@ -0,0 +1,116 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.FileSystemUtils;
+
+class ComponentCatalogTest {
+
+  private static final String COMPONENTS_RESOURCE_PATH = "classpath:/test";
+
+  @Test
+  void of_componentResources_indexesGroupsById() throws IOException {
+    ComponentCatalog componentCatalog = componentCatalog();
+
+    ComponentGroup componentGroup = componentCatalog.componentGroupFor("/component-group-name-from-main-documentation/").orElseThrow();
+
+    assertEquals("Custom Component Name", componentGroup.getName());
+    assertEquals(List.of(componentGroup), componentCatalog.getRootComponentGroup().getSubGroups());
+  }
+
+  @Test
+  void of_manyComponentResources_keepsOrderOfResources(@TempDir Path componentsDirectory) throws IOException {
+    write(componentsDirectory.resolve("index.md"), "");
+    List<String> showCaseIds = new ArrayList<>();
+
+    for (int i = 100; i < 200; i++) {
+      write(componentsDirectory.resolve("group/" + i + "-example.html"), "<div></div>");
+      showCaseIds.add("/group/" + i + "-example");
+    }
+
+    ComponentCatalogRepository componentCatalogRepository = new ComponentCatalogRepository("file:" + componentsDirectory);
+
+    List<ComponentGroup.Showcase> showCases = componentCatalogRepository.getComponentCatalog().componentGroupFor("/group/").orElseThrow().getShowCases();
+    assertEquals(showCaseIds, showCases.stream().map(ComponentGroup.Showcase::getId).collect(toList()));
+  }
+
+  @Test
+  void componentGroupFor_unknownGroupId_returnsEmpty() throws IOException {
+    ComponentCatalog componentCatalog = componentCatalog();
+
+    assertFalse(componentCatalog.componentGroupFor("/unknown/").isPresent());
+  }
+
+  @Test
+  void getComponentCatalog_withoutRefresh_returnsSameCatalog() {
+    ComponentCatalogRepository componentCatalogRepository = new ComponentCatalogRepository(COMPONENTS_RESOURCE_PATH);
+
+    assertSame(componentCatalogRepository.getComponentCatalog(), componentCatalogRepository.getComponentCatalog());
+  }
+
+  @Test
+  void refresh_changedComponentGroup_replacesOnlyChangedComponentGroup(@TempDir Path componentsDirectory) throws IOException {
+    write(componentsDirectory.resolve("index.md"), "");
+    write(componentsDirectory.resolve("first/first.md"), "# First");
+    write(componentsDirectory.resolve("second/second.md"), "# Second");
+    ComponentCatalogRepository componentCatalogRepository = new ComponentCatalogRepository("file:" + componentsDirectory);
+    ComponentCatalog previousComponentCatalog = componentCatalogRepository.getComponentCatalog();
+    ComponentGroup secondComponentGroup = previousComponentCatalog.componentGroupFor("/second/").orElseThrow();
+
+    write(componentsDirectory.resolve("first/01-example.html"), "<div></div>");
+    componentCatalogRepository.refresh("/first/", false);
+
+    ComponentCatalog componentCatalog = componentCatalogRepository.getComponentCatalog();
+    ComponentGroup refreshedSecondComponentGroup = componentCatalog.componentGroupFor("/second/").orElseThrow();
+    assertEquals(1, componentCatalog.componentGroupFor("/first/").orElseThrow().getShowCases().size());
+    assertEquals(secondComponentGroup.getResources(), refreshedSecondComponentGroup.getResources());
+    assertSame(
+      secondComponentGroup.contentOf(secondComponentGroup.getResources().get(1)),
+      refreshedSecondComponentGroup.contentOf(refreshedSecondComponentGroup.getResources().get(1))
+    );
+    assertEquals(2, componentCatalog.getRootComponentGroup().getSubGroups().size());
+    assertEquals(2, previousComponentCatalog.getRootComponentGroup().getSubGroups().size());
+  }
+
+  @Test
+  void refresh_deletedComponentGroupTree_removesComponentGroups(@TempDir Path componentsDirectory) throws IOException {
+    write(componentsDirectory.resolve("index.md"), "");
+    write(componentsDirectory.resolve("first/first.md"), "# First");
+    write(componentsDirectory.resolve("first/nested/nested.md"), "# Nested");
+    ComponentCatalogRepository componentCatalogRepository = new ComponentCatalogRepository("file:" + componentsDirectory);
+
+    FileSystemUtils.deleteRecursively(componentsDirectory.resolve("first"));
+    componentCatalogRepository.refresh("/first/", true);
+
+    ComponentCatalog componentCatalog = componentCatalogRepository.getComponentCatalog();
+    assertFalse(componentCatalog.componentGroupFor("/first/").isPresent());
+    assertFalse(componentCatalog.componentGroupFor("/first/nested/").isPresent());
+    assertEquals(List.of(), componentCatalog.getRootComponentGroup().getSubGroups());
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+  }
+
+  private static ComponentCatalog componentCatalog() throws IOException {
+    ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
+    Resource componentResourcesRoot = resourcePatternResolver.getResource(COMPONENTS_RESOURCE_PATH);
+    Resource[] componentResources = resourcePatternResolver.getResources(COMPONENTS_RESOURCE_PATH + "/**/*");
+
+    return ComponentCatalog.of(componentResourcesRoot, componentResources);
+  }
+}
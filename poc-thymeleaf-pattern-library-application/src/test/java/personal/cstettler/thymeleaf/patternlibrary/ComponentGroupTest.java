@@ -0,0 +1,102 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+class ComponentGroupTest {
+
+  @Test
+  void getShowCases_documentationWithoutSortingDigits_isAssignedToExample() {
+    ComponentGroup componentGroup = new ComponentGroup("/buttons/", List.of(
+      resource("buttons.md", "# Buttons"),
+      resource("01-primary.html", "<button></button>"),
+      resource("primary.md", "# Primary Button"),
+      resource("02-secondary.html", "<button class=\"secondary\"></button>")
+    ));
+
+    List<ComponentGroup.Showcase> showCases = componentGroup.getShowCases();
+
+    assertEquals("Buttons", componentGroup.getName());
+    assertEquals(2, showCases.size());
+    assertEquals("Primary Button", showCases.get(0).getName());
+    assertTrue(showCases.get(0).hasDocumentation());
+    assertEquals("Secondary", showCases.get(1).getName());
+    assertFalse(showCases.get(1).hasDocumentation());
+  }
+
+  @Test
+  void showCaseFor_showCaseId_returnsMatchingShowcaseOnly() {
+    ComponentGroup componentGroup = new ComponentGroup("/buttons/", List.of(
+      resource("01-primary.html", "<button></button>"),
+      resource("02-secondary.html", "<button class=\"secondary\"></button>")
+    ));
+
+    assertEquals("Secondary", componentGroup.showCaseFor("/buttons/02-secondary").orElseThrow().getName());
+    assertFalse(componentGroup.showCaseFor("/buttons/03-tertiary").isPresent());
+  }
+
+  @Test
+  void getContentHash_changedExample_changesHash() {
+    ComponentGroup componentGroup = new ComponentGroup("/buttons/", List.of(
+      resource("buttons.md", "# Buttons"),
+      resource("01-primary.html", "<button></button>")
+    ));
+    ComponentGroup changedComponentGroup = new ComponentGroup("/buttons/", List.of(
+      resource("buttons.md", "# Buttons"),
+      resource("01-primary.html", "<button class=\"primary\"></button>")
+    ));
+
+    assertEquals(componentGroup.getContentHash(), componentGroup.getContentHash());
+    assertNotEquals(componentGroup.getContentHash(), changedComponentGroup.getContentHash());
+  }
+
+  @Test
+  void getContentHash_exampleModifiedInPlace_changesHash(@TempDir Path directory) throws IOException {
+    Path example = directory.resolve("01-primary.html");
+    Files.writeString(example, "<button></button>");
+    ComponentGroup componentGroup = new ComponentGroup("/buttons/", List.of(new FileSystemResource(example)));
+    String contentHash = componentGroup.getContentHash();
+
+    Files.writeString(example, "<button class=\"primary\"></button>");
+    Files.setLastModifiedTime(example, FileTime.fromMillis(Files.getLastModifiedTime(example).toMillis() + 1000));
+
+    assertNotEquals(contentHash, componentGroup.getContentHash());
+  }
+
+  @Test
+  void getSubGroups_addedInAnyOrder_returnsSubGroupsSortedById() {
+    ComponentGroup componentGroup = new ComponentGroup("/widgets/", List.of());
+    ComponentGroup buttons = new ComponentGroup("/widgets/01-buttons/", List.of());
+    ComponentGroup alerts = new ComponentGroup("/widgets/02-alerts/", List.of());
+    ComponentGroup collapsibles = new ComponentGroup("/widgets/03-collapsibles/", List.of());
+
+    componentGroup.addSubGroup(collapsibles);
+    componentGroup.addSubGroup(buttons);
+    componentGroup.addSubGroup(alerts);
+
+    assertEquals(List.of(buttons, alerts, collapsibles), componentGroup.getSubGroups());
+  }
+
+  private static Resource resource(String filename, String content) {
+    return new ByteArrayResource(content.getBytes()) {
+
+      @Override
+      public String getFilename() {
+        return filename;
+      }
+    };
+  }
+}
@@ -0,0 +1,61 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+  "spring.thymeleaf.cache=true"
+})
+class PatternLibraryControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void index_matchingETag_returnsNotModified() throws Exception {
+    assertNotModifiedWhenRequestedAgain(get("/").param("id", "/01-widgets/01-buttons/"));
+  }
+
+  @Test
+  void showcase_matchingETag_returnsNotModified() throws Exception {
+    assertNotModifiedWhenRequestedAgain(get("/showcase").param("id", "/01-widgets/01-buttons/01-button-fragment"));
+  }
+
+  @Test
+  void example_matchingETag_returnsNotModified() throws Exception {
+    assertNotModifiedWhenRequestedAgain(get("/example")
+      .param("title", "Button Fragment")
+      .param("templatePath", "/01-widgets/01-buttons/01-button-fragment")
+    );
+  }
+
+  @Test
+  void index_otherETag_returnsPage() throws Exception {
+    mockMvc.perform(get("/").header(IF_NONE_MATCH, "\"other\""))
+      .andExpect(status().isOk())
+      .andExpect(header().exists(ETAG));
+  }
+
+  private void assertNotModifiedWhenRequestedAgain(MockHttpServletRequestBuilder request) throws Exception {
+    String eTag = mockMvc.perform(request)
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getHeader(ETAG);
+
+    mockMvc.perform(request.header(IF_NONE_MATCH, eTag))
+      .andExpect(status().isNotModified())
+      .andExpect(header().string(ETAG, eTag));
+  }
+}
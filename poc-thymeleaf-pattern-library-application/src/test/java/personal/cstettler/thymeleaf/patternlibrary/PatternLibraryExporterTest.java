@@ -0,0 +1,72 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+class PatternLibraryExporterTest {
+
+  @TempDir
+  static Path exportDirectory;
+
+  @Autowired
+  private PatternLibraryExporter patternLibraryExporter;
+
+  @DynamicPropertySource
+  static void exportDirectory(DynamicPropertyRegistry registry) {
+    registry.add("pattern-library.export-directory", exportDirectory::toString);
+  }
+
+  @Test
+  void run_onStartup_exportsAllComponentGroupsWithoutStoppingApplication() {
+    assertTrue(Files.exists(exportDirectory.resolve("index.html")));
+    assertTrue(Files.exists(exportDirectory.resolve("01-widgets/01-buttons/index.html")));
+    assertTrue(Files.exists(exportDirectory.resolve("showcase/01-widgets/01-buttons/01-button-fragment.html")));
+    assertTrue(Files.exists(exportDirectory.resolve("example/01-widgets/01-buttons/01-button-fragment.html")));
+  }
+
+  @Test
+  void run_componentGroupRemovedSinceLastExport_deletesFilesOfRemovedComponentGroup() throws IOException {
+    Path manifestFile = exportDirectory.resolve(".export-manifest.properties");
+    Properties manifest = new Properties();
+
+    try (InputStream inputStream = Files.newInputStream(manifestFile)) {
+      manifest.load(inputStream);
+    }
+
+    manifest.setProperty("hash:/removed/", "removed");
+    manifest.setProperty("files:/removed/", "removed/index.html\nshowcase/removed/01-example.html");
+
+    try (OutputStream outputStream = Files.newOutputStream(manifestFile)) {
+      manifest.store(outputStream, null);
+    }
+
+    write(exportDirectory.resolve("removed/index.html"));
+    write(exportDirectory.resolve("showcase/removed/01-example.html"));
+
+    patternLibraryExporter.run(null);
+
+    assertFalse(Files.exists(exportDirectory.resolve("removed")));
+    assertFalse(Files.exists(exportDirectory.resolve("showcase/removed")));
+    assertTrue(Files.exists(exportDirectory.resolve("showcase/01-widgets/01-buttons/01-button-fragment.html")));
+  }
+
+  private static void write(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, "<html></html>");
+  }
+}
@@ -0,0 +1,36 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import personal.cstettler.thymeleaf.dialect.ComponentDialect;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+  "spring.thymeleaf.cache=true",
+  "pattern-library.component-metrics-enabled=true",
+  "pattern-library.warmup-enabled=true"
+})
+class PatternLibraryWarmupTest {
+
+  @Autowired
+  private ComponentDialect componentDialect;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void warmup_onStartup_loadsFragmentsOfAllComponentsOnce() {
+    assertFalse(componentDialect.getComponentRegistry().getComponentNames().isEmpty());
+
+    componentDialect.getComponentRegistry().getComponentNames().forEach(componentName -> assertEquals(
+      1, meterRegistry.get("pattern-library.component.fragment-parse").tag("component", componentName).timer().count(), componentName
+    ));
+  }
+}
@@ -0,0 +1,69 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+class RenderedExampleCacheTest {
+
+  private static final String COMPONENTS_RESOURCE_PATH = "classpath:/test";
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void computeIfAbsent_cachedExample_returnsCachedExampleWithoutRendering() throws IOException {
+    RenderedExampleCache renderedExampleCache = new RenderedExampleCache(1024, meterRegistry);
+    ComponentCatalog componentCatalog = componentCatalog();
+    byte[] renderedExample = renderedExampleCache.computeIfAbsent(componentCatalog, "example", () -> new byte[10]);
+
+    byte[] cachedExample = renderedExampleCache.computeIfAbsent(componentCatalog, "example", () -> {
+      throw new IllegalStateException("must not render cached example");
+    });
+
+    assertSame(renderedExample, cachedExample);
+    assertEquals(1, meterRegistry.get("pattern-library.example-cache").tag("result", "hit").functionCounter().count());
+    assertEquals(1, meterRegistry.get("pattern-library.example-cache").tag("result", "miss").functionCounter().count());
+  }
+
+  @Test
+  void computeIfAbsent_maximumSizeExceeded_evictsLeastRecentlyUsedExample() throws IOException {
+    RenderedExampleCache renderedExampleCache = new RenderedExampleCache(25, meterRegistry);
+    ComponentCatalog componentCatalog = componentCatalog();
+    byte[] first = renderedExampleCache.computeIfAbsent(componentCatalog, "first", () -> new byte[10]);
+    byte[] second = renderedExampleCache.computeIfAbsent(componentCatalog, "second", () -> new byte[10]);
+    renderedExampleCache.computeIfAbsent(componentCatalog, "first", () -> new byte[10]);
+
+    renderedExampleCache.computeIfAbsent(componentCatalog, "third", () -> new byte[10]);
+
+    assertSame(first, renderedExampleCache.computeIfAbsent(componentCatalog, "first", () -> new byte[10]));
+    assertNotSame(second, renderedExampleCache.computeIfAbsent(componentCatalog, "second", () -> new byte[10]));
+    assertEquals(20, renderedExampleCache.sizeInBytes());
+  }
+
+  @Test
+  void computeIfAbsent_otherComponentCatalog_evictsAllExamples() throws IOException {
+    RenderedExampleCache renderedExampleCache = new RenderedExampleCache(1024, meterRegistry);
+    renderedExampleCache.computeIfAbsent(componentCatalog(), "example", () -> new byte[10]);
+
+    byte[] renderedExample = renderedExampleCache.computeIfAbsent(componentCatalog(), "example", () -> new byte[5]);
+
+    assertEquals(5, renderedExample.length);
+    assertEquals(5, renderedExampleCache.sizeInBytes());
+  }
+
+  private static ComponentCatalog componentCatalog() throws IOException {
+    ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
+    Resource componentResourcesRoot = resourcePatternResolver.getResource(COMPONENTS_RESOURCE_PATH);
+    Resource[] componentResources = resourcePatternResolver.getResources(COMPONENTS_RESOURCE_PATH + "/**/*");
+
+    return ComponentCatalog.of(componentResourcesRoot, componentResources);
+  }
+}
@@ -0,0 +1,58 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+class ResourceContentTest {
+
+  @Test
+  void getTitle_markdownWithTitle_returnsTitle(@TempDir Path directory) throws IOException {
+    ResourceContent resourceContent = resourceContent(directory, "# Title\ncontent");
+
+    assertEquals("Title", resourceContent.getTitle());
+    assertEquals("<p>content</p>\n", resourceContent.getRenderedContent());
+  }
+
+  @Test
+  void getTitle_markdownWithoutTitle_returnsNull(@TempDir Path directory) throws IOException {
+    ResourceContent resourceContent = resourceContent(directory, "content");
+
+    assertNull(resourceContent.getTitle());
+  }
+
+  @Test
+  void getRenderedContent_unchangedResource_returnsMemoizedContent(@TempDir Path directory) throws IOException {
+    ResourceContent resourceContent = resourceContent(directory, "# Title\ncontent");
+
+    assertSame(resourceContent.getRenderedContent(), resourceContent.getRenderedContent());
+  }
+
+  @Test
+  void getRenderedContent_modifiedResource_returnsNewContent(@TempDir Path directory) throws IOException {
+    ResourceContent resourceContent = resourceContent(directory, "# Title\ncontent");
+    resourceContent.getRenderedContent();
+
+    Path file = resourceContent.getResource().getFile().toPath();
+    Files.writeString(file, "# Other Title\nother content");
+    Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+
+    assertEquals("Other Title", resourceContent.getTitle());
+    assertEquals("<p>other content</p>\n", resourceContent.getRenderedContent());
+  }
+
+  private static ResourceContent resourceContent(Path directory, String content) throws IOException {
+    Path file = directory.resolve("documentation.md");
+    Files.writeString(file, content);
+
+    return new ResourceContent(new FileSystemResource(file));
+  }
+}
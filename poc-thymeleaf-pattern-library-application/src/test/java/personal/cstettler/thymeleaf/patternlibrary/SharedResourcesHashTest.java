@@ -0,0 +1,41 @@
+package personal.cstettler.thymeleaf.patternlibrary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+class SharedResourcesHashTest {
+
+  @Test
+  void get_sameResources_returnsSameHash() {
+    assertEquals(
+      new SharedResourcesHash(new ComponentCatalogRepository("classpath:/templates/components")).get(),
+      new SharedResourcesHash(new ComponentCatalogRepository("classpath:/templates/components")).get()
+    );
+  }
+
+  @Test
+  void get_catalogLoadedFromIndex_returnsIndexedHash(@TempDir Path componentsDirectory, @TempDir Path indexDirectory) throws IOException {
+    Files.writeString(componentsDirectory.resolve("index.md"), "# Library");
+    Path indexFile = indexDirectory.resolve("index.json");
+    Files.write(indexFile, ComponentCatalogIndex.write(
+      new ComponentCatalogRepository("file:" + componentsDirectory).getComponentCatalog(), new FileSystemResource(componentsDirectory), "indexed"
+    ));
+
+    assertEquals("indexed", new SharedResourcesHash(new ComponentCatalogRepository("file:" + componentsDirectory, "file:" + indexFile)).get());
+  }
+
+  @Test
+  void get_componentResourcesWithinTemplates_excludesComponentResources() {
+    assertNotEquals(
+      new SharedResourcesHash(new ComponentCatalogRepository("classpath:/templates/components")).get(),
+      new SharedResourcesHash(new ComponentCatalogRepository("classpath:/test")).get()
+    );
+  }
+}
@@ -0,0 +1,73 @@
+package personal.cstettler.thymeleaf.benchmarks;
+
+/**
+ * Test components of the dialect module, each with an equivalent usage of the component and of a hand-written
+ * fragment rendering the same markup. Slot contents are provided as fragments of the {@link #SLOT_CONTENTS} template
+ * for the hand-written fragments.
+ */
+public enum BenchmarkComponent {
+
+  SIMPLE(
+    "<pl:simple/>",
+    "<th:block th:replace=\"~{components/simple.html :: simple()}\"/>"
+  ),
+  WITH_PARAMETER(
+    "<pl:with-parameter pl:parameter=\"${value}\"/>",
+    "<th:block th:replace=\"~{components/with-parameter.html :: with-parameter(${value})}\"/>"
+  ),
+  WITH_NAMED_SLOTS(
+    "<pl:with-named-slots><div pl:slot=\"slot-a\">{slot-a}</div><div pl:slot=\"slot-b\">{slot-b}</div></pl:with-named-slots>",
+    "<th:block th:replace=\"~{baseline/with-named-slots.html :: with-named-slots(~{slot-contents :: slot-a}, ~{slot-contents :: slot-b})}\"/>"
+  ),
+  WITH_DEFAULT_AND_NAMED_SLOTS(
+    "<pl:with-default-and-named-slots><div>{default}</div><div pl:slot=\"slot-a\">{slot-a}</div></pl:with-default-and-named-slots>",
+    "<th:block th:replace=\"~{baseline/with-default-and-named-slots.html :: with-default-and-named-slots(~{slot-contents :: default}, ~{slot-contents :: slot-a})}\"/>"
+  ),
+  WITH_SLOT_WITH_FALLBACK(
+    "<pl:with-slot-with-fallback/>",
+    "<th:block th:replace=\"~{baseline/with-slot-with-fallback.html :: with-slot-with-fallback(null)}\"/>"
+  );
+
+  static final String SLOT_CONTENTS = "slot-contents";
+
+  private final String componentUsage;
+  private final String fragmentUsage;
+
+  BenchmarkComponent(String componentUsage, String fragmentUsage) {
+    this.componentUsage = componentUsage;
+    this.fragmentUsage = fragmentUsage;
+  }
+
+  String componentPage(int usages, int nestingDepth) {
+    String usage = componentUsage
+      .replace("{default}", slotContent("default", nestingDepth))
+      .replace("{slot-a}", slotContent("slot-a", nestingDepth))
+      .replace("{slot-b}", slotContent("slot-b", nestingDepth));
+
+    return page(usage, usages, nestingDepth);
+  }
+
+  String fragmentPage(int usages, int nestingDepth) {
+    return page(fragmentUsage, usages, nestingDepth);
+  }
+
+  static String slotContents(int nestingDepth) {
+    return "<html>"
+      + "<div th:fragment=\"default\">" + slotContent("default", nestingDepth) + "</div>"
+      + "<div th:fragment=\"slot-a\">" + slotContent("slot-a", nestingDepth) + "</div>"
+      + "<div th:fragment=\"slot-b\">" + slotContent("slot-b", nestingDepth) + "</div>"
+      + "</html>";
+  }
+
+  private static String page(String usage, int usages, int nestingDepth) {
+    return "<div>" + nested(nestingDepth, usage).repeat(usages) + "</div>";
+  }
+
+  private static String slotContent(String slotName, int nestingDepth) {
+    return nested(nestingDepth, "<i>" + slotName + "</i>");
+  }
+
+  private static String nested(int depth, String content) {
+    return "<div>".repeat(depth) + content + "</div>".repeat(depth);
+  }
+}
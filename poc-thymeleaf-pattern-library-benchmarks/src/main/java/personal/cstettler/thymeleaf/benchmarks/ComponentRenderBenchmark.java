@@ -0,0 +1,105 @@
+package personal.cstettler.thymeleaf.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static personal.cstettler.thymeleaf.benchmarks.BenchmarkComponent.SLOT_CONTENTS;
+
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import personal.cstettler.thymeleaf.dialect.ComponentDialect;
+
+/**
+ * Renders pages with a number of usages of a test component, once using the component dialect and once using an
+ * equivalent hand-written fragment (the baseline). Both pages render the same markup, which is verified on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComponentRenderBenchmark {
+
+  private static final String COMPONENT_PAGE = "component-page";
+  private static final String FRAGMENT_PAGE = "fragment-page";
+
+  @Param({"SIMPLE", "WITH_PARAMETER", "WITH_NAMED_SLOTS", "WITH_DEFAULT_AND_NAMED_SLOTS", "WITH_SLOT_WITH_FALLBACK"})
+  public BenchmarkComponent component;
+
+  @Param({"1", "100", "10000"})
+  public int usages;
+
+  @Param({"0", "10"})
+  public int nestingDepth;
+
+  private TemplateEngine templateEngine;
+  private Context context;
+
+  @Setup
+  public void setUp() {
+    templateEngine = templateEngine(Map.of(
+      COMPONENT_PAGE, component.componentPage(usages, nestingDepth),
+      FRAGMENT_PAGE, component.fragmentPage(usages, nestingDepth),
+      SLOT_CONTENTS, BenchmarkComponent.slotContents(nestingDepth)
+    ));
+
+    context = new Context();
+    context.setVariable("value", "value");
+
+    String componentMarkup = withoutWhitespace(componentDialect());
+    String fragmentMarkup = withoutWhitespace(fragment());
+
+    if (!componentMarkup.equals(fragmentMarkup)) {
+      throw new IllegalStateException("component and fragment render different markup for " + component
+        + ":\n" + componentMarkup + "\n" + fragmentMarkup);
+    }
+  }
+
+  @Benchmark
+  public String componentDialect() {
+    return templateEngine.process(COMPONENT_PAGE, context);
+  }
+
+  @Benchmark
+  public String fragment() {
+    return templateEngine.process(FRAGMENT_PAGE, context);
+  }
+
+  private static TemplateEngine templateEngine(Map<String, String> pages) {
+    InMemoryTemplateResolver pageTemplateResolver = new InMemoryTemplateResolver(pages);
+    pageTemplateResolver.setOrder(1);
+
+    ClassLoaderTemplateResolver fragmentTemplateResolver = new ClassLoaderTemplateResolver();
+    fragmentTemplateResolver.setOrder(2);
+
+    ComponentDialect componentDialect = new ComponentDialect();
+    componentDialect.addComponent("simple", "components/simple.html");
+    componentDialect.addComponent("with-parameter", "components/with-parameter.html");
+    componentDialect.addComponent("with-named-slots", "components/with-named-slots.html");
+    componentDialect.addComponent("with-default-and-named-slots", "components/with-default-and-named-slots.html");
+    componentDialect.addComponent("with-slot-with-fallback", "components/with-slot-with-fallback.html");
+
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.addTemplateResolver(pageTemplateResolver);
+    templateEngine.addTemplateResolver(fragmentTemplateResolver);
+    templateEngine.addDialect(componentDialect);
+
+    return templateEngine;
+  }
+
+  private static String withoutWhitespace(String markup) {
+    return markup.replaceAll("\\s+", "");
+  }
+}
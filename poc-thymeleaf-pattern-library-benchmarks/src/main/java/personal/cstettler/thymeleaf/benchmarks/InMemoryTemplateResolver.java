@@ -0,0 +1,29 @@
+package personal.cstettler.thymeleaf.benchmarks;
+
+import java.util.Map;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+/**
+ * Resolves the generated benchmark pages by name. All other templates are left to the next template resolver.
+ */
+class InMemoryTemplateResolver extends AbstractConfigurableTemplateResolver {
+
+  private final Map<String, String> templates;
+
+  InMemoryTemplateResolver(Map<String, String> templates) {
+    this.templates = templates;
+
+    setResolvablePatterns(templates.keySet());
+  }
+
+  @Override
+  protected ITemplateResource computeTemplateResource(
+    IEngineConfiguration configuration, String ownerTemplate, String template, String resourceName, String characterEncoding,
+    Map<String, Object> templateResolutionAttributes
+  ) {
+    return new StringTemplateResource(templates.get(resourceName));
+  }
+}
@@ -1,11 +1,18 @@
 import { defineConfig } from 'vite'
 import copy from 'rollup-plugin-copy'
+import fs from 'fs'
 
 const componentResourceRootPath = 'src/main/resources/templates/pl';
 const componentBaseName = 'poc-thymeleaf-pattern-library-components';
 const targetPath = 'target/classes/static/pl';
+const manifestPath = 'target/classes/templates/pl/pl-components.properties';
+const schemaPath = path(componentResourceRootPath, '/pl-components.xsd');
+const schemaTypes = { 'xs:string': 'String', 'xs:boolean': 'Boolean', 'xs:int': 'Integer', 'xs:integer': 'Integer' };
 
 export default defineConfig({
+  plugins: [
+    componentManifest()
+  ],
   build: {
     outDir: targetPath,
     emptyOutDir: false,
@@ -36,6 +43,73 @@ export default defineConfig({
   }
 })
 
+// generates the manifest used by the component dialect to register all components (see ComponentRegistry), mapping
+// the name of each component to the parameters of its fragment, typed as declared in the schema (pl-components.xsd)
+function componentManifest() {
+  return {
+    name: 'component-manifest',
+    writeBundle() {
+      const componentNames = fs.readdirSync(componentResourceRootPath, { withFileTypes: true })
+        .filter((entry) => entry.isDirectory())
+        .map((entry) => entry.name)
+        .filter((name) => fs.existsSync(componentTemplatePath(name)))
+        .sort();
+
+      const schemaAttributes = fs.existsSync(schemaPath) ? declaredAttributes(fs.readFileSync(schemaPath, 'utf8')) : {};
+
+      const manifest = componentNames
+        .map((name) => `${name}=${fragmentParameters(name, fs.readFileSync(componentTemplatePath(name), 'utf8'))
+          .map((parameter) => parameterDeclaration(parameter, (schemaAttributes[name] || {})[parameter]))
+          .join(',')}`);
+
+      fs.mkdirSync(manifestPath.substring(0, manifestPath.lastIndexOf('/')), { recursive: true });
+      fs.writeFileSync(manifestPath, ['# generated from the component templates', ...manifest, ''].join('\n'));
+    }
+  };
+}
+
+function componentTemplatePath(name) {
+  return path(componentResourceRootPath, `/${name}/${name}.html`);
+}
+
+function fragmentParameters(name, template) {
+  const fragment = template.match(new RegExp(`th:fragment="${name}\\s*(?:\\(([^)]*)\\))?"`));
+
+  if (!fragment) {
+    throw new Error(`no fragment '${name}' found in template of component '${name}'`);
+  }
+
+  return (fragment[1] || '').split(',').map((parameter) => parameter.trim()).filter((parameter) => parameter);
+}
+
+// attribute declarations (name, type, default, use) of each component element of the schema
+function declaredAttributes(schema) {
+  const attributes = {};
+
+  for (const element of schema.matchAll(/<xs:element name="([^"]+)">([\s\S]*?)<\/xs:element>/g)) {
+    attributes[element[1]] = {};
+
+    for (const attribute of element[2].matchAll(/<xs:attribute\s([^>]*?)\/?>/g)) {
+      const declaration = Object.fromEntries([...attribute[1].matchAll(/(\w+)="([^"]*)"/g)].map((match) => [match[1], match[2]]));
+      attributes[element[1]][declaration.name] = declaration;
+    }
+  }
+
+  return attributes;
+}
+
+// <name>[:<type>][=<default value>|!], where ! marks a required attribute
+function parameterDeclaration(parameter, declaration) {
+  if (!declaration) {
+    return parameter;
+  }
+
+  const type = schemaTypes[declaration.type] || 'Object';
+  const defaultValue = declaration.default !== undefined ? `=${declaration.default}` : '';
+
+  return `${parameter}:${type}${declaration.use === 'required' ? '!' : defaultValue}`;
+}
+
 function path(rootPath, filePath) {
   return rootPath + filePath;
 }
@@ -0,0 +1,206 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.standard.expression.IStandardExpression;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.thymeleaf.standard.expression.TextLiteralExpression;
+import org.thymeleaf.standard.expression.Token;
+
+/**
+ * Memoizes the classification of component attribute values into parsed expressions and plain literals (values that
+ * cannot be parsed as expression and are passed on as they are). Plain text (several words without any expression
+ * syntax) is recognized as literal up front without asking the parser, all other values are parsed on their first
+ * occurrence only (paying for the exception thrown by the parser in case of a literal). Once the maximum size is
+ * exceeded, values not used since the last eviction are evicted (an approximation of least recently used that does not
+ * need a lock when reading), so that frequently used values stay memoized.
+ */
+class AttributeExpressionCache {
+
+  private static final int MAXIMUM_SIZE = 1000;
+  private static final String PREPROCESSING_DELIMITER = "__";
+  // words of letters, digits and dots only, as any other character might be part of the expression syntax
+  private static final Pattern PLAIN_TEXT = Pattern.compile("[\\p{L}\\p{N}.]+(?:\\s+[\\p{L}\\p{N}.]+)+");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final Set<String> OPERATOR_KEYWORDS = Set.of("and", "or", "not", "eq", "ne", "lt", "gt", "le", "ge", "div", "mod");
+
+  private final Map<String, AttributeValue> attributeValues;
+  private final int maximumSize;
+  private final AtomicBoolean evicting;
+  private final ComponentMetrics metrics;
+
+  AttributeExpressionCache(ComponentMetrics metrics) {
+    this(metrics, MAXIMUM_SIZE);
+  }
+
+  AttributeExpressionCache(ComponentMetrics metrics, int maximumSize) {
+    this.attributeValues = new ConcurrentHashMap<>();
+    this.maximumSize = maximumSize;
+    this.evicting = new AtomicBoolean();
+    this.metrics = metrics;
+  }
+
+  Object resolve(String sourceValue, ITemplateContext context) {
+    if (sourceValue == null || sourceValue.isBlank()) {
+      return sourceValue;
+    }
+
+    return attributeValueFor(sourceValue, context).resolve(sourceValue, context);
+  }
+
+  boolean isExpression(String sourceValue, ITemplateContext context) {
+    return attributeValueFor(sourceValue, context).expression != null;
+  }
+
+  /**
+   * Whether the value is the same in every context, i.e. a plain literal, a text literal or a literal token.
+   */
+  boolean isConstant(String sourceValue, ITemplateContext context) {
+    if (sourceValue == null || sourceValue.isBlank()) {
+      return true;
+    }
+
+    if (sourceValue.contains(PREPROCESSING_DELIMITER)) {
+      return false;
+    }
+
+    IStandardExpression expression = attributeValueFor(sourceValue, context).expression;
+
+    return expression == null || expression instanceof TextLiteralExpression || expression instanceof Token;
+  }
+
+  private AttributeValue attributeValueFor(String sourceValue, ITemplateContext context) {
+    if (isPlainText(sourceValue)) {
+      return AttributeValue.LITERAL;
+    }
+
+    if (sourceValue.contains(PREPROCESSING_DELIMITER)) {
+      // preprocessed expressions depend on the context and cannot be memoized
+      return classify(sourceValue, context);
+    }
+
+    AttributeValue attributeValue = attributeValues.get(sourceValue);
+
+    if (metrics.isEnabled()) {
+      metrics.recordExpressionCacheAccess(attributeValue != null);
+    }
+
+    if (attributeValue != null) {
+      attributeValue.markUsed();
+      return attributeValue;
+    }
+
+    attributeValue = classify(sourceValue, context);
+    attributeValues.put(sourceValue, attributeValue);
+
+    if (attributeValues.size() > maximumSize) {
+      evictUnused(sourceValue);
+    }
+
+    return attributeValue;
+  }
+
+  /**
+   * Evicts the values not used since the last eviction (except the value just added) and marks the remaining ones as
+   * unused, until the maximum size is no longer exceeded. Only one thread evicts at a time, other threads do not wait
+   * for it, so the maximum size may be exceeded temporarily.
+   */
+  private void evictUnused(String addedSourceValue) {
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      while (attributeValues.size() > maximumSize) {
+        Iterator<Map.Entry<String, AttributeValue>> entries = attributeValues.entrySet().iterator();
+
+        while (entries.hasNext() && attributeValues.size() > maximumSize) {
+          Map.Entry<String, AttributeValue> entry = entries.next();
+
+          if (!entry.getKey().equals(addedSourceValue) && !entry.getValue().resetUsed()) {
+            entries.remove();
+          }
+        }
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  int size() {
+    return attributeValues.size();
+  }
+
+  /**
+   * Whether the value consists of several plain words, which the parser rejects, as tokens without an operator in between
+   * cannot be parsed. Single words are left to the parser, as they are valid tokens (possibly numbers or booleans).
+   */
+  private static boolean isPlainText(String sourceValue) {
+    String trimmedValue = sourceValue.trim();
+
+    if (!PLAIN_TEXT.matcher(trimmedValue).matches()) {
+      return false;
+    }
+
+    for (String word : WHITESPACE.split(trimmedValue)) {
+      if (OPERATOR_KEYWORDS.contains(word.toLowerCase(Locale.ROOT))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static AttributeValue classify(String sourceValue, ITemplateContext context) {
+    try {
+      return new AttributeValue(StandardExpressions.getExpressionParser(context.getConfiguration()).parseExpression(context, sourceValue));
+    } catch (TemplateProcessingException e) {
+      return new AttributeValue(null);
+    }
+  }
+
+  private static class AttributeValue {
+
+    private static final AttributeValue LITERAL = new AttributeValue(null);
+
+    private final IStandardExpression expression;
+    private volatile boolean used;
+
+    private AttributeValue(IStandardExpression expression) {
+      this.expression = expression;
+    }
+
+    void markUsed() {
+      // avoids writing (and invalidating the cache line on other cores) if already marked
+      if (!used) {
+        used = true;
+      }
+    }
+
+    boolean resetUsed() {
+      boolean wasUsed = used;
+      used = false;
+
+      return wasUsed;
+    }
+
+    Object resolve(String sourceValue, ITemplateContext context) {
+      if (expression == null) {
+        return sourceValue;
+      }
+
+      try {
+        return expression.execute(context);
+      } catch (TemplateProcessingException e) {
+        return sourceValue;
+      }
+    }
+  }
+}
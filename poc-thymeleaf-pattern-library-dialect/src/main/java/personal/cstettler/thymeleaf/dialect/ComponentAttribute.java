@@ -0,0 +1,79 @@
+package personal.cstettler.thymeleaf.dialect;
+
+/**
+ * Declaration of a single attribute of a component, as part of a {@link ComponentSchema}.
+ */
+public class ComponentAttribute {
+
+  private final String name;
+  private final Class<?> type;
+  private final Object defaultValue;
+  private final boolean required;
+
+  private ComponentAttribute(String name, Class<?> type, Object defaultValue, boolean required) {
+    if (defaultValue != null && !type.isInstance(defaultValue)) {
+      throw new IllegalArgumentException("default value '" + defaultValue + "' of attribute '" + name + "' is not of type " + type.getName());
+    }
+
+    this.name = name;
+    this.type = type;
+    this.defaultValue = defaultValue;
+    this.required = required;
+  }
+
+  public static ComponentAttribute required(String name, Class<?> type) {
+    return new ComponentAttribute(name, type, null, true);
+  }
+
+  public static ComponentAttribute optional(String name, Class<?> type) {
+    return optional(name, type, null);
+  }
+
+  public static ComponentAttribute optional(String name, Class<?> type, Object defaultValue) {
+    return new ComponentAttribute(name, type, defaultValue, false);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  public Object getDefaultValue() {
+    return defaultValue;
+  }
+
+  public boolean isRequired() {
+    return required;
+  }
+
+  Object convert(Object value) {
+    if (value == null || type.isInstance(value)) {
+      return value;
+    }
+
+    if (type == String.class) {
+      return value.toString();
+    }
+
+    if (type == Integer.class && value instanceof Number && ((Number) value).doubleValue() == ((Number) value).intValue()) {
+      return ((Number) value).intValue();
+    }
+
+    if (value instanceof String) {
+      String literal = ((String) value).trim();
+
+      if (type == Boolean.class && (literal.equals("true") || literal.equals("false"))) {
+        return Boolean.valueOf(literal);
+      }
+
+      if (type == Integer.class && literal.matches("-?\\d+")) {
+        return Integer.valueOf(literal);
+      }
+    }
+
+    throw new IllegalArgumentException("value '" + value + "' is not of type " + type.getSimpleName());
+  }
+}
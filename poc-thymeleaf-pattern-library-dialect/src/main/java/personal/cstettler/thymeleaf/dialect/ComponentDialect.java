@@ -1,25 +1,63 @@
 package personal.cstettler.thymeleaf.dialect;
 
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import java.time.Duration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
 import org.thymeleaf.dialect.AbstractProcessorDialect;
 import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
 
 public class ComponentDialect extends AbstractProcessorDialect {
 
   private static final String DIALECT_PREFIX = "pl";
+  private static final String WARMUP_ELEMENT_NAME = "warmup";
+
+  /**
+   * Template loading the fragments of all components when processed, see {@link #warmup(ITemplateEngine)}.
+   */
+  public static final String WARMUP_TEMPLATE = "<" + DIALECT_PREFIX + ":" + WARMUP_ELEMENT_NAME + "/>";
 
-  private final Set<IProcessor> processors;
+  private final ComponentRegistry componentRegistry;
+  private final Map<String, ComponentModelProcessor> componentProcessorsByName;
+  private final IProcessor removeSlotAttributeProcessor;
+  private final IProcessor warmupElementProcessor;
+  private final AttributeExpressionCache attributeExpressionCache;
+  private final ComponentRenderCache renderCache;
+  private final boolean precompile;
+  private final ComponentMetrics metrics;
 
   public ComponentDialect() {
+    this(ComponentMetrics.NONE);
+  }
+
+  public ComponentDialect(ComponentMetrics metrics) {
+    this(false, metrics);
+  }
+
+  ComponentDialect(boolean precompile) {
+    this(precompile, ComponentMetrics.NONE);
+  }
+
+  private ComponentDialect(boolean precompile, ComponentMetrics metrics) {
     super("Thymeleaf UI Component Dialect", DIALECT_PREFIX, 0);
 
-    this.processors = new HashSet<>();
-    this.processors.add(new RemoveSlotAttributeProcessor(DIALECT_PREFIX, "slot"));
+    this.componentRegistry = ComponentRegistry.fromManifests(ComponentDialect.class.getClassLoader());
+    this.componentProcessorsByName = new LinkedHashMap<>();
+    this.removeSlotAttributeProcessor = new RemoveSlotAttributeProcessor(DIALECT_PREFIX, "slot");
+    this.warmupElementProcessor = new WarmupElementProcessor(DIALECT_PREFIX, WARMUP_ELEMENT_NAME, componentProcessorsByName.values());
+    this.attributeExpressionCache = new AttributeExpressionCache(metrics);
+    this.renderCache = new ComponentRenderCache();
+    this.precompile = precompile;
+    this.metrics = metrics;
 
-    addComponent("button");
-    addComponent("alert");
-    addComponent("collapsible");
+    componentRegistry.getComponentNames().forEach(this::addComponentProcessor);
   }
 
   public ComponentDialect addComponent(String elementName) {
@@ -27,13 +65,73 @@ public class ComponentDialect extends AbstractProcessorDialect {
   }
 
   public ComponentDialect addComponent(String elementName, String templatePath) {
-    processors.add(new ComponentModelProcessor(DIALECT_PREFIX, elementName, templatePath));
+    return addComponent(elementName, templatePath, null);
+  }
+
+  public ComponentDialect addComponent(String elementName, String templatePath, ComponentSchema schema) {
+    componentRegistry.register(elementName, templatePath, schema);
+    addComponentProcessor(elementName);
 
     return this;
   }
 
+  /**
+   * Caches the rendered markup of static component usages (only constant attributes, slot contents without any
+   * processing), so that repeated usages are emitted as text without expanding the component again. Only enable it if
+   * the fragments of all components render the same for the same attributes, slot contents and locale, i.e. do not
+   * depend on any other variables. A time to live of <code>null</code> keeps entries until evicted by size.
+   */
+  public ComponentDialect enableRenderCache(int maximumSize, Duration timeToLive) {
+    renderCache.configure(maximumSize, timeToLive);
+
+    return this;
+  }
+
+  /**
+   * Loads the fragments of all components up front, so that the first usage of each component does not have to parse
+   * and compile its fragment. Fragments are only reused by the template engine that loaded them, so the given template
+   * engine has to be the one rendering the components, and it has to be able to resolve {@link #WARMUP_TEMPLATE} (see
+   * {@link #warmupTemplateResolver()}).
+   */
+  public void warmup(ITemplateEngine templateEngine) {
+    templateEngine.process(WARMUP_TEMPLATE, new Context());
+  }
+
+  /**
+   * Template resolver resolving {@link #WARMUP_TEMPLATE} only, to be added to a template engine not resolving string
+   * templates otherwise. Takes precedence over all other template resolvers, so that they are not asked for it.
+   */
+  public static ITemplateResolver warmupTemplateResolver() {
+    StringTemplateResolver warmupTemplateResolver = new StringTemplateResolver();
+    warmupTemplateResolver.setResolvablePatterns(Set.of(WARMUP_TEMPLATE));
+    warmupTemplateResolver.setTemplateMode(HTML);
+    warmupTemplateResolver.setCacheable(false);
+    warmupTemplateResolver.setOrder(Integer.MIN_VALUE);
+
+    return warmupTemplateResolver;
+  }
+
+  public ComponentRegistry getComponentRegistry() {
+    return componentRegistry;
+  }
+
   @Override
   public Set<IProcessor> getProcessors(String dialectPrefix) {
+    Set<IProcessor> processors = new HashSet<>(componentProcessorsByName.values());
+    processors.add(removeSlotAttributeProcessor);
+    processors.add(warmupElementProcessor);
+
     return processors;
   }
+
+  private void addComponentProcessor(String elementName) {
+    if (elementName.equals(WARMUP_ELEMENT_NAME)) {
+      throw new IllegalArgumentException("component name '" + WARMUP_ELEMENT_NAME + "' is reserved");
+    }
+
+    componentProcessorsByName.put(elementName, new ComponentModelProcessor(
+      DIALECT_PREFIX, elementName, componentRegistry.templatePathFor(elementName), componentRegistry.schemaFor(elementName),
+      attributeExpressionCache, renderCache, precompile, metrics, componentProcessorsByName::get
+    ));
+  }
 }
@@ -0,0 +1,100 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.ICacheEntryValidity;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IModel;
+
+/**
+ * Parsed fragment template of a component, compiled into a {@link ComponentPlan}. Nested components that could be
+ * expanded when compiling are part of the plan, so the fragments of these nested components are kept as well. Instances
+ * are immutable and remain usable as long as the validity reported by the template resolver allows caching the parsed
+ * template of the fragment and of all expanded nested components. The variables read by the fragment are determined
+ * once (see {@link FragmentVariables}).
+ */
+class ComponentFragment {
+
+  private final String templateName;
+  private final IEngineConfiguration configuration;
+  private final ICacheEntryValidity validity;
+  private final List<ComponentFragment> nestedFragments;
+  private final ComponentPlan plan;
+  private final Set<String> readVariables;
+
+  private ComponentFragment(String templateName, IEngineConfiguration configuration, ICacheEntryValidity validity,
+    List<ComponentFragment> nestedFragments, ComponentPlan plan, Set<String> readVariables) {
+    this.templateName = templateName;
+    this.configuration = configuration;
+    this.validity = validity;
+    this.nestedFragments = nestedFragments;
+    this.plan = plan;
+    this.readVariables = readVariables;
+  }
+
+  static ComponentFragment of(String templateName, TemplateModel templateModel, String dialectPrefix, String defaultSlotName,
+    NestedComponentExpander nestedComponentExpander) {
+    int fragmentStart = ComponentModelProcessor.indexOfFirstOpenElementTagWithAttribute(templateModel, "th:fragment");
+
+    if (fragmentStart < 0) {
+      throw new IllegalStateException("no fragment definition found in template '" + templateName + "'");
+    }
+
+    int fragmentEnd = ComponentModelProcessor.endOfSubTree(templateModel, fragmentStart);
+    List<ComponentFragment> nestedFragments = new ArrayList<>();
+    IModel fragmentContent = nestedComponentExpander.expand(new ModelRange(templateModel, fragmentStart + 1, fragmentEnd), nestedFragments);
+
+    return new ComponentFragment(
+      templateName,
+      templateModel.getConfiguration(),
+      templateModel.getTemplateData().getValidity(),
+      unmodifiableList(nestedFragments),
+      ComponentPlan.compile(fragmentContent, 0, fragmentContent.size(), dialectPrefix, defaultSlotName),
+      FragmentVariables.readBy(fragmentContent, dialectPrefix)
+    );
+  }
+
+  boolean isReusableFor(String templateName, IEngineConfiguration configuration) {
+    return this.templateName.equals(templateName)
+      && this.configuration == configuration
+      && isStillValid();
+  }
+
+  boolean isStillValid() {
+    if (!validity.isCacheable() || !validity.isCacheStillValid()) {
+      return false;
+    }
+
+    for (ComponentFragment nestedFragment : nestedFragments) {
+      if (!nestedFragment.isStillValid()) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  ComponentPlan getPlan() {
+    return plan;
+  }
+
+  /**
+   * Variables read by the fragment that it does not declare itself, or null if it depends on anything else (like other
+   * templates or request objects).
+   */
+  Set<String> getReadVariables() {
+    return readVariables;
+  }
+
+  /**
+   * Expands the nested components of a fragment, collecting the fragments of the expanded components.
+   */
+  interface NestedComponentExpander {
+
+    IModel expand(IModel fragmentContent, List<ComponentFragment> nestedFragments);
+  }
+}
@@ -0,0 +1,54 @@
+package personal.cstettler.thymeleaf.dialect;
+
+/**
+ * Receives measurements of the component expansion. Durations are passed as primitive nanoseconds and callers skip
+ * taking measurements at all if metrics are not enabled, so that the disabled case does not allocate.
+ */
+public interface ComponentMetrics {
+
+  ComponentMetrics NONE = new ComponentMetrics() {
+
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+
+    @Override
+    public void recordExpansion(String componentName, long durationNanos) {
+    }
+
+    @Override
+    public void recordSlotFill(String componentName, long durationNanos) {
+    }
+
+    @Override
+    public void recordFragmentParse(String componentName, long durationNanos) {
+    }
+
+    @Override
+    public void recordFragmentCacheAccess(String componentName, boolean hit) {
+    }
+
+    @Override
+    public void recordExpressionCacheAccess(boolean hit) {
+    }
+
+    @Override
+    public void recordRenderCacheAccess(String componentName, boolean hit) {
+    }
+  };
+
+  boolean isEnabled();
+
+  void recordExpansion(String componentName, long durationNanos);
+
+  void recordSlotFill(String componentName, long durationNanos);
+
+  void recordFragmentParse(String componentName, long durationNanos);
+
+  void recordFragmentCacheAccess(String componentName, boolean hit);
+
+  void recordExpressionCacheAccess(boolean hit);
+
+  void recordRenderCacheAccess(String componentName, boolean hit);
+}
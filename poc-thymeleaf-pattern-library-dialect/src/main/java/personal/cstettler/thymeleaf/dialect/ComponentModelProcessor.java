@@ -1,16 +1,26 @@
 package personal.cstettler.thymeleaf.dialect;
 
-import static java.util.Arrays.stream;
-import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static org.thymeleaf.model.AttributeValueQuotes.DOUBLE;
 import static org.thymeleaf.standard.processor.StandardReplaceTagProcessor.PRECEDENCE;
 import static org.thymeleaf.templatemode.TemplateMode.HTML;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IEngineContext;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.TemplateManager;
 import org.thymeleaf.engine.TemplateModel;
@@ -18,153 +28,495 @@ import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.model.IAttribute;
 import org.thymeleaf.model.ICloseElementTag;
 import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IElementTag;
 import org.thymeleaf.model.IModelFactory;
 import org.thymeleaf.model.IOpenElementTag;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.model.ITemplateEvent;
 import org.thymeleaf.processor.element.AbstractElementModelProcessor;
 import org.thymeleaf.processor.element.IElementModelStructureHandler;
-import org.thymeleaf.standard.expression.IStandardExpressionParser;
-import org.thymeleaf.standard.expression.StandardExpressions;
 
 class ComponentModelProcessor extends AbstractElementModelProcessor {
 
   private static final String DEFAULT_SLOT_NAME = ComponentModelProcessor.class.getName() + ".default";
+  private static final Pattern VARIABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
 
   private final String dialectPrefix;
   private final String elementName;
   private final String templatePath;
-
-  public ComponentModelProcessor(String dialectPrefix, String elementName, String templatePath) {
+  private final ComponentSchema schema;
+  private final AttributeExpressionCache attributeExpressionCache;
+  private final ComponentRenderCache renderCache;
+  private final boolean precompile;
+  private final ComponentMetrics metrics;
+  private final Function<String, ComponentModelProcessor> componentProcessors;
+
+  private volatile ComponentFragment cachedFragment;
+  private volatile boolean renderable = true;
+
+  public ComponentModelProcessor(String dialectPrefix, String elementName, String templatePath, ComponentSchema schema,
+    AttributeExpressionCache attributeExpressionCache, ComponentRenderCache renderCache, boolean precompile, ComponentMetrics metrics,
+    Function<String, ComponentModelProcessor> componentProcessors) {
     super(HTML, dialectPrefix, elementName, true, null, false, PRECEDENCE);
 
     this.dialectPrefix = dialectPrefix;
     this.elementName = elementName;
     this.templatePath = templatePath;
+    this.schema = schema;
+    this.attributeExpressionCache = attributeExpressionCache;
+    this.renderCache = renderCache;
+    this.precompile = precompile;
+    this.metrics = metrics;
+    this.componentProcessors = componentProcessors;
   }
 
   @Override
   protected void doProcess(ITemplateContext context, IModel model, IElementModelStructureHandler structureHandler) {
-    IProcessableElementTag componentElementTag = firstOpenOrStandaloneElementTag(model);
+    int componentElementTagIndex = indexOfFirstOpenOrStandaloneElementTag(model);
 
-    if (componentElementTag == null) {
+    if (componentElementTagIndex < 0) {
       throw new IllegalStateException("no component element tag found in model " + model);
     }
 
+    IProcessableElementTag componentElementTag = (IProcessableElementTag) model.get(componentElementTagIndex);
+
     if (!isValidComponentTag(componentElementTag)) {
       // avoid handling web components named "pl-xyz" (thymeleaf treats "pl-" as prefix the same way as "pl:")
       return;
     }
 
-    IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(context.getConfiguration());
-    Map<String, Object> additionalAttributes = resolveAdditionalAttributes(componentElementTag, context, expressionParser);
-    Map<String, Object> componentAttributes = resolveComponentAttributes(componentElementTag, context, expressionParser);
-    componentAttributes.forEach(structureHandler::setLocalVariable);
+    long expansionStart = metrics.isEnabled() ? System.nanoTime() : 0;
+    ComponentFragment fragment = loadFragment(context, emptySet());
+    String renderedMarkup = !precompile && renderCache.isEnabled() && renderable
+      ? renderStatic(context, fragment, model, componentElementTagIndex, componentElementTag)
+      : null;
+
+    if (renderedMarkup != null) {
+      // the whole component usage is replaced by its rendered markup, which is not processed any further
+      model.reset();
+      model.add(context.getModelFactory().createText(renderedMarkup));
+
+      if (metrics.isEnabled()) {
+        metrics.recordExpansion(elementName, System.nanoTime() - expansionStart);
+      }
+
+      return;
+    }
+
+    Map<String, Object> additionalAttributes = precompile
+      ? precompileAttributes(componentElementTag, context)
+      : resolveAttributes(componentElementTag, context, structureHandler);
 
-    IModel fragmentModel = loadFragmentModel(context);
-    Map<String, List<ITemplateEvent>> slotContents = extractSlotContents(model);
-    Map<String, ITemplateEvent> slots = extractSlots(fragmentModel);
-    IModel mergedModel = prepareModel(context, fragmentModel, additionalAttributes, slots, slotContents);
+    long slotFillStart = metrics.isEnabled() ? System.nanoTime() : 0;
+    Map<String, List<IModel>> slotContents = extractSlotContents(model, componentElementTagIndex);
+    expandNestedComponents(context, slotContents, emptySet(), new ArrayList<>());
+    IModel mergedModel = prepareModel(context, fragment, additionalAttributes, slotContents);
 
     model.reset();
     model.addModel(mergedModel);
+
+    if (metrics.isEnabled()) {
+      long expansionEnd = System.nanoTime();
+      metrics.recordSlotFill(elementName, expansionEnd - slotFillStart);
+      metrics.recordExpansion(elementName, expansionEnd - expansionStart);
+    }
+  }
+
+  /**
+   * Loads the fragment of this component (including the fragments of expanded nested components), unless already loaded
+   * and still valid.
+   */
+  void warmup(ITemplateContext context) {
+    loadFragment(context, emptySet());
   }
 
   private boolean isValidComponentTag(IProcessableElementTag componentElementTag) {
     return componentElementTag.getElementCompleteName().startsWith(dialectPrefix + ":");
   }
 
-  private IModel loadFragmentModel(ITemplateContext context) {
-    return parseFragmentTemplateModel(context, templatePath != null ? templatePath : "pl/" + elementName + "/" + elementName);
+  private ComponentFragment loadFragment(ITemplateContext context, Set<String> expandingComponents) {
+    String templateName = templatePath != null ? templatePath : "pl/" + elementName + "/" + elementName;
+    ComponentFragment fragment = cachedFragment;
+
+    boolean reusable = fragment != null && fragment.isReusableFor(templateName, context.getConfiguration());
+
+    if (metrics.isEnabled()) {
+      metrics.recordFragmentCacheAccess(elementName, reusable);
+    }
+
+    if (!reusable) {
+      // honours the validity (cacheable flag, ttl) of the template resolution, so non-cacheable templates are re-parsed
+      long parseStart = metrics.isEnabled() ? System.nanoTime() : 0;
+      // nested components are expanded once when compiling the fragment, unless expanding them would be a cycle
+      Set<String> fragmentExpandingComponents = new HashSet<>(expandingComponents);
+      fragmentExpandingComponents.add(elementName);
+      fragment = ComponentFragment.of(
+        templateName, parseFragmentTemplateModel(context, templateName), dialectPrefix, DEFAULT_SLOT_NAME,
+        (fragmentContent, nestedFragments) -> expandNestedComponents(context, fragmentContent, fragmentExpandingComponents, nestedFragments)
+      );
+      cachedFragment = fragment;
+
+      if (metrics.isEnabled()) {
+        metrics.recordFragmentParse(elementName, System.nanoTime() - parseStart);
+      }
+    }
+
+    return fragment;
+  }
+
+  /**
+   * Returns the rendered markup of a static component usage (only constant component attributes, slot contents without
+   * any processing) from the render cache, rendering it on a miss. Returns null if the usage is not static or if the
+   * fragment reads any variable not passed as component attribute, as it would not render the same in isolation.
+   */
+  private String renderStatic(ITemplateContext context, ComponentFragment fragment, IModel model, int componentElementTagIndex,
+    IProcessableElementTag componentElementTag) {
+    // the close element tag of the component, or the element tag itself if it is a standalone tag
+    int componentElementTagEnd = Math.max(componentElementTagIndex + 1, endOfSubTree(model, componentElementTagIndex));
+
+    if (!isStatic(model, componentElementTagIndex + 1, componentElementTagEnd)) {
+      return null;
+    }
+
+    Map<String, Object> attributeValues = constantAttributeValuesFor(componentElementTag, context);
+    Set<String> readVariables = fragment.getReadVariables();
+
+    if (attributeValues == null || readVariables == null || !attributeValues.keySet().containsAll(readVariables) || !fragment.isStillValid()) {
+      return null;
+    }
+
+    Map<String, Object> blockAttributes = blockAttributesFor(attributeValues);
+
+    // the complete slot contents are part of the key (instead of only their hash), so that keys cannot collide
+    StringWriter key = new StringWriter();
+    key.append(elementName).append('\n').append(String.valueOf(context.getLocale())).append('\n');
+    key.append(String.valueOf(blockAttributes.get("th:with"))).append('\n');
+    write(new ModelRange(model, componentElementTagIndex + 1, componentElementTagEnd), key);
+
+    String renderedMarkup = renderCache.get(key.toString(), fragment);
+
+    if (metrics.isEnabled()) {
+      metrics.recordRenderCacheAccess(elementName, renderedMarkup != null);
+    }
+
+    if (renderedMarkup == null) {
+      renderedMarkup = renderIsolated(context, prepareModel(context, fragment, blockAttributes, extractSlotContents(model, componentElementTagIndex)));
+
+      if (renderedMarkup != null) {
+        renderCache.put(key.toString(), fragment, renderedMarkup);
+      }
+    }
+
+    return renderedMarkup;
   }
 
-  private Map<String, List<ITemplateEvent>> extractSlotContents(IModel model) {
-    Map<String, List<ITemplateEvent>> slots = new HashMap<>();
+  private boolean isStatic(IModel model, int start, int end) {
+    for (int i = start; i < end; i++) {
+      ITemplateEvent templateEvent = model.get(i);
 
-    templateEventsIn(model).forEach(templateEvent -> {
       if (isOpenOrStandaloneTag(templateEvent)) {
         IProcessableElementTag elementTag = (IProcessableElementTag) templateEvent;
-        if (elementTag.hasAttribute(dialectPrefix, "slot")) {
-          String slotName = elementTag.getAttributeValue(dialectPrefix, "slot");
 
-          if (slots.containsKey(slotName)) {
-            throw new IllegalStateException("duplicate slot definition '" + slotName + "'");
+        if (elementTag.getElementDefinition().hasAssociatedProcessors()) {
+          return false;
+        }
+
+        for (IAttribute attribute : elementTag.getAllAttributes()) {
+          // slot attributes are handled by the component
+          if (attribute.getAttributeDefinition().hasAssociatedProcessors() && !isSlotAttribute(attribute)) {
+            return false;
           }
+        }
+      } else if (!(templateEvent instanceof IElementTag) && containsInlinedExpression(templateEvent.toString())) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Renders the given model in a new context without any variables, so that the result can be reused independently of
+   * the current context. Returns null (and does not try again for this component) if the component cannot be rendered
+   * this way.
+   */
+  private String renderIsolated(ITemplateContext context, IModel mergedModel) {
+    IEngineConfiguration configuration = context.getConfiguration();
+    TemplateManager templateManager = configuration.getTemplateManager();
+    StringWriter markup = new StringWriter();
+    StringWriter renderedMarkup = new StringWriter();
+
+    try {
+      write(mergedModel, markup);
+      TemplateModel templateModel = templateManager.parseString(context.getTemplateData(), markup.toString(), 0, 0, HTML, false);
+      IEngineContext isolatedContext = configuration.getEngineContextFactory().createEngineContext(
+        configuration, context.getTemplateData(), context.getTemplateResolutionAttributes(), new Context(context.getLocale())
+      );
+
+      templateManager.process(templateModel, isolatedContext, renderedMarkup);
+    } catch (TemplateProcessingException e) {
+      renderable = false;
+      return null;
+    }
+
+    if (containsInlinedExpression(renderedMarkup.toString())) {
+      // would be evaluated again when emitted as text
+      return null;
+    }
+
+    return renderedMarkup.toString();
+  }
 
-          slots.put(slotName, subTreeFrom(model, elementTag));
+  private boolean isSlotAttribute(IAttribute attribute) {
+    return attribute.getAttributeCompleteName().equals(dialectPrefix + ":slot");
+  }
+
+  private static boolean containsInlinedExpression(String text) {
+    return text.contains("[[") || text.contains("[(");
+  }
+
+  private static void write(IModel model, StringWriter writer) {
+    try {
+      model.write(writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Map<String, List<IModel>> extractSlotContents(IModel model, int componentElementTagIndex) {
+    Map<String, List<IModel>> slots = new HashMap<>();
+    List<IModel> defaultSlotContent = new ArrayList<>();
+
+    // single pass over the component content: named slot sub trees are cut out, everything else is default slot content,
+    // slot contents are kept as ranges of the component model instead of being copied
+    int componentElementTagEnd = endOfSubTree(model, componentElementTagIndex);
+    int defaultSlotContentStart = componentElementTagIndex + 1;
+    int i = defaultSlotContentStart;
+
+    while (i < componentElementTagEnd) {
+      ITemplateEvent templateEvent = model.get(i);
+
+      if (!isOpenOrStandaloneTag(templateEvent)) {
+        i++;
+        continue;
+      }
+
+      IProcessableElementTag elementTag = (IProcessableElementTag) templateEvent;
+
+      if (elementTag.hasAttribute(dialectPrefix, "slot")) {
+        String slotName = elementTag.getAttributeValue(dialectPrefix, "slot");
+
+        if (slots.containsKey(slotName)) {
+          throw new IllegalStateException("duplicate slot definition '" + slotName + "'");
         }
+
+        int subTreeEnd = endOfSubTree(model, i);
+        List<IModel> namedSlotContent = new ArrayList<>(1);
+        addRange(namedSlotContent, model, i, subTreeEnd + 1);
+        slots.put(slotName, namedSlotContent);
+        addRange(defaultSlotContent, model, defaultSlotContentStart, i);
+        i = subTreeEnd + 1;
+        defaultSlotContentStart = i;
+        continue;
       }
-    });
 
-    List<ITemplateEvent> defaultSlotContent = subTreeBelow(model, firstOpenOrStandaloneElementTag(model));
-    slots.values().forEach(defaultSlotContent::removeAll);
+      // slot definitions within nested components belong to the nested component
+      i = isValidComponentTag(elementTag) ? endOfSubTree(model, i) + 1 : i + 1;
+    }
+
+    addRange(defaultSlotContent, model, defaultSlotContentStart, componentElementTagEnd);
     slots.put(DEFAULT_SLOT_NAME, defaultSlotContent);
 
     return slots;
   }
 
-  private Map<String, ITemplateEvent> extractSlots(IModel fragmentModel) {
-    Map<String, ITemplateEvent> slots = new HashMap<>();
+  private static void addRange(List<IModel> ranges, IModel model, int start, int end) {
+    if (start < end) {
+      ranges.add(new ModelRange(model, start, end));
+    }
+  }
 
-    templateEventsIn(fragmentModel).forEach(templateEvent -> {
-      if (isSlot(templateEvent)) {
-        slots.put(slotNameOf((IProcessableElementTag) templateEvent), templateEvent);
+  private void expandNestedComponents(ITemplateContext context, Map<String, List<IModel>> slotContents,
+    Set<String> expandingComponents, List<ComponentFragment> nestedFragments) {
+    slotContents.values().forEach(slotContent ->
+      slotContent.replaceAll(slotContentRange -> expandNestedComponents(context, slotContentRange, expandingComponents, nestedFragments))
+    );
+  }
+
+  /**
+   * Expands nested components right away instead of leaving them to another pass of the template engine, as long as
+   * they can be expanded without evaluating any expression. Returns the given model if there is nothing to expand.
+   */
+  private IModel expandNestedComponents(ITemplateContext context, IModel model, Set<String> expandingComponents,
+    List<ComponentFragment> nestedFragments) {
+    IModel expandedModel = null;
+    int copiedUntil = 0;
+    int i = 0;
+
+    while (i < model.size()) {
+      ComponentModelProcessor nestedComponentProcessor = componentProcessorFor(model.get(i));
+
+      if (nestedComponentProcessor == null || expandingComponents.contains(nestedComponentProcessor.elementName)) {
+        i++;
+        continue;
       }
-    });
 
-    return slots;
+      Map<String, Object> blockAttributes = nestedComponentProcessor.constantBlockAttributesFor((IProcessableElementTag) model.get(i), context);
+      int nestedComponentEnd = endOfSubTree(model, i);
+
+      // slots within the content of a nested component are holes of the enclosing fragment, filled only later
+      if (blockAttributes == null || containsSlot(model, i + 1, nestedComponentEnd)) {
+        i++;
+        continue;
+      }
+
+      if (expandedModel == null) {
+        expandedModel = context.getModelFactory().createModel();
+      }
+
+      expandedModel.addModel(new ModelRange(model, copiedUntil, i));
+      expandedModel.addModel(nestedComponentProcessor.expandNested(context, model, i, blockAttributes, expandingComponents, nestedFragments));
+      i = nestedComponentEnd + 1;
+      copiedUntil = i;
+    }
+
+    if (expandedModel == null) {
+      return model;
+    }
+
+    expandedModel.addModel(new ModelRange(model, copiedUntil, model.size()));
+
+    return expandedModel;
   }
 
-  private IModel prepareModel(
-    ITemplateContext context,
-    IModel fragmentModel,
-    Map<String, Object> additionalAttributes,
-    Map<String, ITemplateEvent> slots,
-    Map<String, List<ITemplateEvent>> slotContents
-  ) {
-    IModelFactory modelFactory = context.getModelFactory();
-    IModel newModel = modelFactory.createModel();
+  private IModel expandNested(ITemplateContext context, IModel model, int componentElementTagIndex, Map<String, Object> blockAttributes,
+    Set<String> expandingComponents, List<ComponentFragment> nestedFragments) {
+    ComponentFragment fragment = loadFragment(context, expandingComponents);
+    nestedFragments.add(fragment);
 
-    newModel.add(blockOpenElement(modelFactory, additionalAttributes));
+    Map<String, List<IModel>> slotContents = extractSlotContents(model, componentElementTagIndex);
+    expandNestedComponents(context, slotContents, expandingComponents, nestedFragments);
 
-    List<ITemplateEvent> mergedElementTags = fillSlots(fragmentModel, slots, slotContents);
-    mergedElementTags.forEach(newModel::add);
+    return prepareModel(context, fragment, blockAttributes, slotContents);
+  }
 
-    newModel.add(blockCloseElement(modelFactory));
+  private ComponentModelProcessor componentProcessorFor(ITemplateEvent templateEvent) {
+    if (!isOpenOrStandaloneTag(templateEvent) || !isValidComponentTag((IProcessableElementTag) templateEvent)) {
+      return null;
+    }
 
-    return newModel;
+    return componentProcessors.apply(((IProcessableElementTag) templateEvent).getElementCompleteName().substring(dialectPrefix.length() + 1));
   }
 
-  private List<ITemplateEvent> fillSlots(
-    IModel fragmentModel, Map<String, ITemplateEvent> slots,
-    Map<String, List<ITemplateEvent>> slotContents
-  ) {
-    List<ITemplateEvent> fragmentElementTags = subTreeBelow(fragmentModel, firstOpenElementTagWithAttribute(fragmentModel, "th:fragment"));
-    slots.forEach((slotName, slotElementTag) -> {
-      List<ITemplateEvent> slotContent = slotContents.get(slotName);
-
-      if (slotContent == null || slotContent.isEmpty()) {
-        if (slotElementTag instanceof IOpenElementTag) {
-          slotContent = fallbackSlotContent(fragmentModel, (IOpenElementTag) slotElementTag);
-        } else {
-          slotContent = emptyList();
+  private boolean containsSlot(IModel model, int start, int end) {
+    for (int i = start; i < end; i++) {
+      ITemplateEvent templateEvent = model.get(i);
+
+      if (isOpenOrStandaloneTag(templateEvent) && ((IProcessableElementTag) templateEvent).getElementCompleteName().equals(dialectPrefix + ":slot")) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Attributes of the block replacing this component when expanded as nested component, with all component attributes
+   * turned into literal <code>th:with</code> assignations. Returns null if the component cannot be expanded this way,
+   * i.e. if it has other attributes (like <code>th:if</code>) or non-constant or invalid component attributes, which
+   * are left to (and reported by) the regular processing of the component.
+   */
+  private Map<String, Object> constantBlockAttributesFor(IProcessableElementTag element, ITemplateContext context) {
+    Map<String, Object> attributeValues = constantAttributeValuesFor(element, context);
+
+    return attributeValues != null ? blockAttributesFor(attributeValues) : null;
+  }
+
+  /**
+   * Values of all attributes of the given component element (including defaults of declared attributes), or null if any
+   * attribute is not a component attribute, not constant or invalid.
+   */
+  private Map<String, Object> constantAttributeValuesFor(IProcessableElementTag element, ITemplateContext context) {
+    // sorted by name, so that the same attributes always result in the same assignations
+    Map<String, Object> attributeValues = new TreeMap<>();
+
+    for (IAttribute attribute : element.getAllAttributes()) {
+      if (!dialectPrefix.equals(attribute.getAttributeDefinition().getAttributeName().getPrefix())
+        || !attributeExpressionCache.isConstant(attribute.getValue(), context)) {
+        return null;
+      }
+
+      attributeValues.put(
+        attribute.getAttributeCompleteName().substring(dialectPrefix.length() + 1),
+        attributeExpressionCache.resolve(attribute.getValue(), context)
+      );
+    }
+
+    if (schema != null) {
+      attributeValues = declaredAttributeValuesFor(attributeValues);
+    }
+
+    if (attributeValues == null) {
+      return null;
+    }
+
+    for (Map.Entry<String, Object> attributeValue : attributeValues.entrySet()) {
+      if (!VARIABLE_NAME.matcher(attributeValue.getKey()).matches() || !isLiteral(attributeValue.getValue())) {
+        return null;
+      }
+    }
+
+    return attributeValues;
+  }
+
+  private static Map<String, Object> blockAttributesFor(Map<String, Object> attributeValues) {
+    List<String> assignations = new ArrayList<>();
+    attributeValues.forEach((name, value) -> assignations.add(name + "=" + precompiledLiteralFor(value)));
+
+    return assignations.isEmpty() ? Map.of() : Map.of("th:with", String.join(",", assignations));
+  }
+
+  private Map<String, Object> declaredAttributeValuesFor(Map<String, Object> attributeValues) {
+    Map<String, Object> declaredAttributeValues = new LinkedHashMap<>();
+
+    for (ComponentAttribute declaredAttribute : schema.getAttributes()) {
+      if (!attributeValues.containsKey(declaredAttribute.getName())) {
+        if (declaredAttribute.isRequired()) {
+          return null;
         }
+
+        declaredAttributeValues.put(declaredAttribute.getName(), declaredAttribute.getDefaultValue());
+        continue;
       }
 
-      fillSlot(fragmentElementTags, subTreeFrom(fragmentModel, slotElementTag), slotContent);
-    });
+      try {
+        declaredAttributeValues.put(declaredAttribute.getName(), declaredAttribute.convert(attributeValues.get(declaredAttribute.getName())));
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
 
-    return fragmentElementTags;
+    return declaredAttributeValues.keySet().containsAll(attributeValues.keySet()) ? declaredAttributeValues : null;
   }
 
-  private void fillSlot(List<ITemplateEvent> templateEvents, List<ITemplateEvent> slotSubTree, List<ITemplateEvent> slotContent) {
-    int position = templateEvents.indexOf(slotSubTree.get(0));
-    templateEvents.removeAll(slotSubTree);
-    templateEvents.addAll(position, slotContent);
+  private static boolean isLiteral(Object value) {
+    return value == null || value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Long;
   }
 
-  private static List<ITemplateEvent> fallbackSlotContent(IModel fragmentModel, IOpenElementTag slotElementTag) {
-    return subTreeBelow(fragmentModel, slotElementTag);
+  private IModel prepareModel(
+    ITemplateContext context,
+    ComponentFragment fragment,
+    Map<String, Object> additionalAttributes,
+    Map<String, List<IModel>> slotContents
+  ) {
+    IModelFactory modelFactory = context.getModelFactory();
+    IModel newModel = modelFactory.createModel();
+
+    newModel.add(blockOpenElement(modelFactory, additionalAttributes));
+    fragment.getPlan().fill(newModel, slotContents);
+    newModel.add(blockCloseElement(modelFactory));
+
+    return newModel;
   }
 
   private static IOpenElementTag blockOpenElement(IModelFactory modelFactory, Map<String, Object> attributes) {
@@ -178,94 +530,172 @@ class ComponentModelProcessor extends AbstractElementModelProcessor {
     return modelFactory.createCloseElementTag("th:block");
   }
 
-  private boolean isSlot(ITemplateEvent templateEvent) {
-    if (templateEvent instanceof IProcessableElementTag) {
-      return ((IProcessableElementTag) templateEvent).getElementCompleteName().equals(dialectPrefix + ":slot");
-    }
-
-    return false;
-  }
-
   private boolean isOpenOrStandaloneTag(ITemplateEvent templateEvent) {
     return templateEvent instanceof IProcessableElementTag;
   }
 
-  private String slotNameOf(IProcessableElementTag elementTag) {
-    return elementTag.hasAttribute(dialectPrefix, "name")
-      ? elementTag.getAttributeValue(dialectPrefix, "name")
-      : DEFAULT_SLOT_NAME;
-  }
+  private static int indexOfFirstOpenOrStandaloneElementTag(IModel model) {
+    for (int i = 0; i < model.size(); i++) {
+      if (model.get(i) instanceof IProcessableElementTag) {
+        return i;
+      }
+    }
 
-  private static IProcessableElementTag firstOpenOrStandaloneElementTag(IModel model) {
-    return templateEventsIn(model).stream()
-      .filter((elementTag) -> elementTag instanceof IProcessableElementTag)
-      .map(templateEvent -> (IProcessableElementTag)templateEvent)
-      .findFirst()
-      .orElse(null);
+    return -1;
   }
 
-  private static IProcessableElementTag firstOpenElementTagWithAttribute(IModel model, String attributeName) {
-    return templateEventsIn(model).stream()
-      .filter((elementTag) -> elementTag instanceof IOpenElementTag)
-      .map(templateEvent -> (IProcessableElementTag)templateEvent)
-      .filter(elementTag -> elementTag.hasAttribute(attributeName))
-      .findFirst()
-      .orElse(null);
+  static int indexOfFirstOpenElementTagWithAttribute(IModel model, String attributeName) {
+    for (int i = 0; i < model.size(); i++) {
+      ITemplateEvent templateEvent = model.get(i);
+
+      if (templateEvent instanceof IOpenElementTag && ((IOpenElementTag) templateEvent).hasAttribute(attributeName)) {
+        return i;
+      }
+    }
+
+    return -1;
   }
 
-  private Map<String, Object> resolveComponentAttributes(IProcessableElementTag element, ITemplateContext context,
-    IStandardExpressionParser expressionParser) {
-    Map<String, Object> attributes = new HashMap<>();
+  private Map<String, Object> resolveAttributes(IProcessableElementTag element, ITemplateContext context,
+    IElementModelStructureHandler structureHandler) {
+    Map<String, Object> additionalAttributes = new HashMap<>();
+    Object[] declaredAttributeValues = schema != null ? new Object[schema.size()] : null;
+    boolean[] declaredAttributesDefined = schema != null ? new boolean[schema.size()] : null;
+
+    for (IAttribute attribute : element.getAllAttributes()) {
+      Object resolvedValue = attributeExpressionCache.resolve(attribute.getValue(), context);
 
-    // TODO or use list of predefined attributes per element and read value (potentially null)
+      if (!dialectPrefix.equals(attribute.getAttributeDefinition().getAttributeName().getPrefix())) {
+        additionalAttributes.put(attribute.getAttributeCompleteName(), resolvedValue);
+        continue;
+      }
+
+      String attributeName = attribute.getAttributeCompleteName().substring(dialectPrefix.length() + 1);
 
-    if (element.getAllAttributes() != null) {
-      stream(element.getAllAttributes())
-        .filter(attribute -> dialectPrefix.equals(attribute.getAttributeDefinition().getAttributeName().getPrefix()))
-        .forEach(attribute -> {
-          Object resolvedValue = tryResolveAttributeValue(attribute, context, expressionParser);
+      if (schema == null) {
+        structureHandler.setLocalVariable(attributeName, resolvedValue);
+        continue;
+      }
 
-          attributes.put(attribute.getAttributeCompleteName().substring(dialectPrefix.length() + 1), resolvedValue);
-        });
+      int attributeIndex = schema.indexOf(attributeName);
+
+      if (attributeIndex < 0) {
+        throw unknownAttribute(element, attribute);
+      }
+
+      try {
+        declaredAttributeValues[attributeIndex] = schema.attributeAt(attributeIndex).convert(resolvedValue);
+        declaredAttributesDefined[attributeIndex] = true;
+      } catch (IllegalArgumentException e) {
+        throw new TemplateProcessingException(
+          "invalid attribute '" + attribute.getAttributeCompleteName() + "' on component '" + element.getElementCompleteName() + "': " + e.getMessage(),
+          attribute.getTemplateName(), attribute.getLine(), attribute.getCol()
+        );
+      }
+    }
+
+    if (schema != null) {
+      for (int i = 0; i < schema.size(); i++) {
+        ComponentAttribute declaredAttribute = schema.attributeAt(i);
+
+        if (!declaredAttributesDefined[i]) {
+          if (declaredAttribute.isRequired()) {
+            throw missingRequiredAttribute(element, declaredAttribute);
+          }
+
+          declaredAttributeValues[i] = declaredAttribute.getDefaultValue();
+        }
+
+        structureHandler.setLocalVariable(declaredAttribute.getName(), declaredAttributeValues[i]);
+      }
     }
 
-    return attributes;
+    return additionalAttributes;
   }
 
-  private Map<String, Object> resolveAdditionalAttributes(IProcessableElementTag element, ITemplateContext context,
-    IStandardExpressionParser expressionParser) {
-    Map<String, Object> attributes = new HashMap<>();
+  private Map<String, Object> precompileAttributes(IProcessableElementTag element, ITemplateContext context) {
+    // attributes are not resolved but passed on as th:with assignations, to be evaluated when rendering the output
+    Map<String, Object> additionalAttributes = new LinkedHashMap<>();
+    Set<String> definedAttributeNames = new HashSet<>();
+    List<String> assignations = new ArrayList<>();
+
+    for (IAttribute attribute : element.getAllAttributes()) {
+      if (!dialectPrefix.equals(attribute.getAttributeDefinition().getAttributeName().getPrefix())) {
+        additionalAttributes.put(attribute.getAttributeCompleteName(), attribute.getValue());
+        continue;
+      }
 
-    if (element.getAllAttributes() != null) {
-      stream(element.getAllAttributes())
-        .filter(attribute -> !dialectPrefix.equals(attribute.getAttributeDefinition().getAttributeName().getPrefix()))
-        .forEach(attribute -> attributes.put(attribute.getAttributeCompleteName(),
-          tryResolveAttributeValue(attribute, context, expressionParser)));
+      String attributeName = attribute.getAttributeCompleteName().substring(dialectPrefix.length() + 1);
+
+      if (schema != null && schema.indexOf(attributeName) < 0) {
+        throw unknownAttribute(element, attribute);
+      }
+
+      definedAttributeNames.add(attributeName);
+      assignations.add(attributeName + "=" + precompiledExpressionFor(attribute.getValue(), context));
     }
 
-    return attributes;
+    if (schema != null) {
+      for (ComponentAttribute declaredAttribute : schema.getAttributes()) {
+        if (!definedAttributeNames.contains(declaredAttribute.getName())) {
+          if (declaredAttribute.isRequired()) {
+            throw missingRequiredAttribute(element, declaredAttribute);
+          }
+
+          assignations.add(declaredAttribute.getName() + "=" + precompiledLiteralFor(declaredAttribute.getDefaultValue()));
+        }
+      }
+    }
+
+    if (!assignations.isEmpty()) {
+      Object existingAssignations = additionalAttributes.get("th:with");
+      String componentAssignations = String.join(",", assignations);
+
+      additionalAttributes.put("th:with", existingAssignations != null ? existingAssignations + "," + componentAssignations : componentAssignations);
+    }
+
+    return additionalAttributes;
   }
 
-  private static Object tryResolveAttributeValue(IAttribute attribute, ITemplateContext context,
-    IStandardExpressionParser expressionParser) {
-    try {
-      return expressionParser.parseExpression(context, attribute.getValue()).execute(context);
-    } catch (TemplateProcessingException e) {
-      return attribute.getValue();
+  private String precompiledExpressionFor(String sourceValue, ITemplateContext context) {
+    if (sourceValue != null && !sourceValue.isBlank() && attributeExpressionCache.isExpression(sourceValue, context)) {
+      return "(" + sourceValue + ")";
     }
+
+    return precompiledLiteralFor(sourceValue);
   }
 
-  private static IModel parseFragmentTemplateModel(ITemplateContext context, String templateName) {
-    TemplateManager templateManager = context.getConfiguration().getTemplateManager();
-    TemplateModel templateModel = templateManager.parseStandalone(context, templateName, emptySet(), HTML, true, true);
+  private static String precompiledLiteralFor(Object value) {
+    if (value == null) {
+      return "null";
+    }
 
-    return templateModel;
+    if (value instanceof String) {
+      return "'" + ((String) value).replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    return value.toString();
+  }
+
+  private TemplateProcessingException unknownAttribute(IProcessableElementTag element, IAttribute attribute) {
+    return new TemplateProcessingException(
+      "unknown attribute '" + attribute.getAttributeCompleteName() + "' on component '" + element.getElementCompleteName() + "'",
+      attribute.getTemplateName(), attribute.getLine(), attribute.getCol()
+    );
   }
 
-  public static List<ITemplateEvent> subTreeBelow(IModel model, IProcessableElementTag elementTag) {
-    List<ITemplateEvent> subTree = ComponentModelProcessor.subTreeFrom(model, elementTag);
+  private TemplateProcessingException missingRequiredAttribute(IProcessableElementTag element, ComponentAttribute attribute) {
+    return new TemplateProcessingException(
+      "missing required attribute '" + dialectPrefix + ":" + attribute.getName() + "' on component '" + element.getElementCompleteName() + "'",
+      element.getTemplateName(), element.getLine(), element.getCol()
+    );
+  }
+
+  private static TemplateModel parseFragmentTemplateModel(ITemplateContext context, String templateName) {
+    TemplateManager templateManager = context.getConfiguration().getTemplateManager();
+    TemplateModel templateModel = templateManager.parseStandalone(context, templateName, emptySet(), HTML, true, true);
 
-    return subTree.size() < 2 ? emptyList() : subTree.subList(1, subTree.size() - 1);
+    return templateModel;
   }
 
   static List<ITemplateEvent> subTreeFrom(IModel model, ITemplateEvent startTemplateEvent) {
@@ -304,13 +734,29 @@ class ComponentModelProcessor extends AbstractElementModelProcessor {
     return subTree;
   }
 
-  private static List<ITemplateEvent> templateEventsIn(IModel model) {
-    List<ITemplateEvent> templateEvents = new ArrayList<>();
+  static int endOfSubTree(IModel model, int start) {
+    if (!(model.get(start) instanceof IOpenElementTag)) {
+      return start;
+    }
 
-    for (int i = 0; i < model.size(); i++) {
-      templateEvents.add(model.get(i));
+    int nrOfUnclosedOpenElementTags = 0;
+
+    for (int i = start; i < model.size(); i++) {
+      ITemplateEvent templateEvent = model.get(i);
+
+      if (templateEvent instanceof IOpenElementTag) {
+        nrOfUnclosedOpenElementTags++;
+      }
+
+      if (templateEvent instanceof ICloseElementTag) {
+        nrOfUnclosedOpenElementTags--;
+      }
+
+      if (nrOfUnclosedOpenElementTags == 0) {
+        return i;
+      }
     }
 
-    return templateEvents;
+    throw new IllegalStateException("no close element tag found for '" + model.get(start) + "'");
   }
 }
@@ -0,0 +1,101 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * Immutable instruction list of a compiled component fragment: static event segments interleaved with slot holes.
+ * Segments and slot fallback contents are ranges over the parsed fragment template, so filling the plan is a single
+ * linear pass adding one range per segment and splicing slot contents (ranges of the component model) into the holes.
+ */
+class ComponentPlan {
+
+  private final List<Segment> segments;
+
+  private ComponentPlan(List<Segment> segments) {
+    this.segments = segments;
+  }
+
+  static ComponentPlan compile(IModel fragmentModel, int start, int end, String dialectPrefix, String defaultSlotName) {
+    List<Segment> segments = new ArrayList<>();
+    int staticEventsStart = start;
+
+    int i = start;
+    while (i < end) {
+      ITemplateEvent templateEvent = fragmentModel.get(i);
+
+      if (!isSlot(templateEvent, dialectPrefix)) {
+        i++;
+        continue;
+      }
+
+      if (staticEventsStart < i) {
+        segments.add(Segment.staticEvents(new ModelRange(fragmentModel, staticEventsStart, i)));
+      }
+
+      IProcessableElementTag slotElementTag = (IProcessableElementTag) templateEvent;
+      int slotEnd = ComponentModelProcessor.endOfSubTree(fragmentModel, i);
+      String slotName = slotElementTag.hasAttribute(dialectPrefix, "name")
+        ? slotElementTag.getAttributeValue(dialectPrefix, "name")
+        : defaultSlotName;
+
+      segments.add(Segment.slot(slotName, new ModelRange(fragmentModel, Math.min(i + 1, slotEnd), slotEnd)));
+      i = slotEnd + 1;
+      staticEventsStart = i;
+    }
+
+    if (staticEventsStart < end) {
+      segments.add(Segment.staticEvents(new ModelRange(fragmentModel, staticEventsStart, end)));
+    }
+
+    return new ComponentPlan(unmodifiableList(segments));
+  }
+
+  void fill(IModel targetModel, Map<String, List<IModel>> slotContents) {
+    for (Segment segment : segments) {
+      List<IModel> slotContent = segment.slotName != null ? slotContents.get(segment.slotName) : null;
+
+      if (slotContent == null || slotContent.isEmpty()) {
+        targetModel.addModel(segment.events);
+        continue;
+      }
+
+      for (int i = 0; i < slotContent.size(); i++) {
+        targetModel.addModel(slotContent.get(i));
+      }
+    }
+  }
+
+  private static boolean isSlot(ITemplateEvent templateEvent, String dialectPrefix) {
+    if (templateEvent instanceof IProcessableElementTag) {
+      return ((IProcessableElementTag) templateEvent).getElementCompleteName().equals(dialectPrefix + ":slot");
+    }
+
+    return false;
+  }
+
+  private static class Segment {
+
+    private final String slotName;
+    private final IModel events;
+
+    private Segment(String slotName, IModel events) {
+      this.slotName = slotName;
+      this.events = events;
+    }
+
+    static Segment staticEvents(IModel events) {
+      return new Segment(null, events);
+    }
+
+    static Segment slot(String slotName, IModel fallbackContent) {
+      return new Segment(slotName, fallbackContent);
+    }
+  }
+}
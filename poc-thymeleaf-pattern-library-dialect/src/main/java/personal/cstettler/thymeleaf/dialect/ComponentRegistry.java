@@ -0,0 +1,124 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableSet;
+import static personal.cstettler.thymeleaf.dialect.ComponentAttribute.optional;
+import static personal.cstettler.thymeleaf.dialect.ComponentAttribute.required;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * All components known to a {@link ComponentDialect}, by element name. Components of a component library are read
+ * from its manifest at {@value #MANIFEST_PATH}, which is generated when building the library. The manifest maps the
+ * name of each component to the comma-separated parameters of its fragment, the template is expected at
+ * <code>pl/&lt;name&gt;/&lt;name&gt;</code>. As the manifest is looked up directly, no classpath scan is required.
+ * <p>
+ * Parameters are declared as <code>&lt;name&gt;[:&lt;type&gt;][=&lt;default value&gt;|!]</code>, where <code>!</code>
+ * marks a required attribute. Parameters without type are untyped and optional.
+ */
+public class ComponentRegistry {
+
+  public static final String MANIFEST_PATH = "templates/pl/pl-components.properties";
+
+  private static final Map<String, Class<?>> ATTRIBUTE_TYPES = Map.of(
+    "String", String.class,
+    "Boolean", Boolean.class,
+    "Integer", Integer.class,
+    "Object", Object.class
+  );
+
+  private final Map<String, String> templatePathsByName;
+  private final Map<String, ComponentSchema> schemasByName;
+
+  public ComponentRegistry() {
+    this.templatePathsByName = new LinkedHashMap<>();
+    this.schemasByName = new LinkedHashMap<>();
+  }
+
+  public static ComponentRegistry fromManifests(ClassLoader classLoader) {
+    ComponentRegistry componentRegistry = new ComponentRegistry();
+
+    try {
+      Enumeration<URL> manifests = classLoader.getResources(MANIFEST_PATH);
+
+      while (manifests.hasMoreElements()) {
+        componentRegistry.registerAll(manifests.nextElement());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("unable to read component manifests '" + MANIFEST_PATH + "'", e);
+    }
+
+    return componentRegistry;
+  }
+
+  public ComponentRegistry register(String name, String templatePath, ComponentSchema schema) {
+    templatePathsByName.put(name, templatePath != null ? templatePath : "pl/" + name + "/" + name);
+    schemasByName.put(name, schema);
+
+    return this;
+  }
+
+  public Set<String> getComponentNames() {
+    return unmodifiableSet(templatePathsByName.keySet());
+  }
+
+  public String templatePathFor(String name) {
+    return templatePathsByName.get(name);
+  }
+
+  public ComponentSchema schemaFor(String name) {
+    return schemasByName.get(name);
+  }
+
+  private void registerAll(URL manifest) throws IOException {
+    Properties components = new Properties();
+
+    try (InputStream inputStream = manifest.openStream(); Reader reader = new InputStreamReader(inputStream, UTF_8)) {
+      components.load(reader);
+    }
+
+    components.stringPropertyNames().stream().sorted().forEach(name -> register(name, null, schemaOf(name, components.getProperty(name))));
+  }
+
+  private static ComponentSchema schemaOf(String name, String parameters) {
+    return ComponentSchema.of(Arrays.stream(parameters.split(","))
+      .map(String::trim)
+      .filter(parameter -> !parameter.isEmpty())
+      .map(parameter -> attributeOf(name, parameter))
+      .toArray(ComponentAttribute[]::new)
+    );
+  }
+
+  private static ComponentAttribute attributeOf(String componentName, String parameter) {
+    boolean required = parameter.endsWith("!");
+    String declaration = required ? parameter.substring(0, parameter.length() - 1) : parameter;
+    int defaultValueIndex = declaration.indexOf('=');
+    String defaultValue = defaultValueIndex >= 0 ? declaration.substring(defaultValueIndex + 1).trim() : null;
+    String nameAndType = defaultValueIndex >= 0 ? declaration.substring(0, defaultValueIndex) : declaration;
+    int typeIndex = nameAndType.indexOf(':');
+    String attributeName = (typeIndex >= 0 ? nameAndType.substring(0, typeIndex) : nameAndType).trim();
+    Class<?> type = typeIndex >= 0 ? ATTRIBUTE_TYPES.get(nameAndType.substring(typeIndex + 1).trim()) : Object.class;
+
+    if (type == null) {
+      throw new IllegalStateException("unknown type of parameter '" + parameter + "' of component '" + componentName + "'");
+    }
+
+    if (required) {
+      return required(attributeName, type);
+    }
+
+    // default values are declared as literals, converted the same way as attribute values
+    return optional(attributeName, type, defaultValue != null ? optional(attributeName, type).convert(defaultValue) : null);
+  }
+}
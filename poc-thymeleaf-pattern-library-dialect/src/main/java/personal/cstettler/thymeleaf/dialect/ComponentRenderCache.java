@@ -0,0 +1,79 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of the rendered markup of static component usages, i.e. usages with only constant
+ * attributes and slot contents without any processing. Disabled (maximum size 0) unless enabled via
+ * {@link ComponentDialect#enableRenderCache(int, Duration)}. Entries are evicted when exceeding the maximum size,
+ * when expired (if a time to live is configured) or when the fragment of the component was parsed again.
+ */
+class ComponentRenderCache {
+
+  private final Map<String, Entry> entries;
+
+  private volatile int maximumSize;
+  private long timeToLiveNanos;
+
+  ComponentRenderCache() {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maximumSize;
+      }
+    };
+  }
+
+  synchronized void configure(int maximumSize, Duration timeToLive) {
+    if (maximumSize < 0) {
+      throw new IllegalArgumentException("maximum size must not be negative, but was " + maximumSize);
+    }
+
+    this.maximumSize = maximumSize;
+    this.timeToLiveNanos = timeToLive != null ? timeToLive.toNanos() : 0;
+    entries.clear();
+  }
+
+  boolean isEnabled() {
+    return maximumSize > 0;
+  }
+
+  synchronized String get(String key, ComponentFragment fragment) {
+    Entry entry = entries.get(key);
+
+    if (entry == null) {
+      return null;
+    }
+
+    if (entry.fragment != fragment || (timeToLiveNanos > 0 && System.nanoTime() - entry.createdNanos > timeToLiveNanos)) {
+      entries.remove(key);
+      return null;
+    }
+
+    return entry.renderedMarkup;
+  }
+
+  synchronized void put(String key, ComponentFragment fragment, String renderedMarkup) {
+    entries.put(key, new Entry(fragment, renderedMarkup, System.nanoTime()));
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private static class Entry {
+
+    private final ComponentFragment fragment;
+    private final String renderedMarkup;
+    private final long createdNanos;
+
+    private Entry(ComponentFragment fragment, String renderedMarkup, long createdNanos) {
+      this.fragment = fragment;
+      this.renderedMarkup = renderedMarkup;
+      this.createdNanos = createdNanos;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declares the attributes supported by a component. Attributes of a component with a schema are resolved by direct
+ * lookup, applying defaults for missing optional attributes and rejecting undeclared or missing required ones.
+ */
+public class ComponentSchema {
+
+  private final List<ComponentAttribute> attributes;
+  private final Map<String, Integer> attributeIndexByName;
+
+  private ComponentSchema(List<ComponentAttribute> attributes) {
+    this.attributes = unmodifiableList(attributes);
+    this.attributeIndexByName = new HashMap<>();
+
+    for (int i = 0; i < attributes.size(); i++) {
+      if (attributeIndexByName.put(attributes.get(i).getName(), i) != null) {
+        throw new IllegalArgumentException("duplicate attribute '" + attributes.get(i).getName() + "'");
+      }
+    }
+  }
+
+  public static ComponentSchema of(ComponentAttribute... attributes) {
+    return new ComponentSchema(asList(attributes));
+  }
+
+  public List<ComponentAttribute> getAttributes() {
+    return attributes;
+  }
+
+  int size() {
+    return attributes.size();
+  }
+
+  ComponentAttribute attributeAt(int index) {
+    return attributes.get(index);
+  }
+
+  int indexOf(String attributeName) {
+    Integer index = attributeIndexByName.get(attributeName);
+
+    return index != null ? index : -1;
+  }
+}
@@ -0,0 +1,121 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.dialect.AbstractDialect;
+import org.thymeleaf.dialect.IExecutionAttributeDialect;
+import org.thymeleaf.standard.expression.StandardExpressionParser;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+
+/**
+ * Expands all <code>pl:</code> components of the templates in a source directory into plain Thymeleaf markup, so that
+ * the component dialect no longer has to process them when rendering. Component attributes are not evaluated but
+ * turned into <code>th:with</code> assignations, all other markup is copied as it is.
+ * <p>
+ * Usage: <code>ComponentTemplateCompiler &lt;source directory&gt; &lt;target directory&gt;</code>
+ */
+public class ComponentTemplateCompiler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ComponentTemplateCompiler.class);
+
+  private static final String COMPONENT_MARKER = "<pl:";
+
+  private final TemplateEngine templateEngine;
+
+  ComponentTemplateCompiler(ComponentDialect componentDialect, ITemplateResolver... templateResolvers) {
+    this.templateEngine = new TemplateEngine();
+    this.templateEngine.setDialect(componentDialect);
+    this.templateEngine.addDialect(new ExpressionParserDialect());
+
+    for (ITemplateResolver templateResolver : templateResolvers) {
+      this.templateEngine.addTemplateResolver(templateResolver);
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      throw new IllegalArgumentException("usage: ComponentTemplateCompiler <source directory> <target directory>");
+    }
+
+    Path sourceDirectory = Paths.get(args[0]);
+    Path targetDirectory = Paths.get(args[1]);
+
+    FileTemplateResolver sourceTemplateResolver = new FileTemplateResolver();
+    sourceTemplateResolver.setPrefix(sourceDirectory.toAbsolutePath() + "/");
+    sourceTemplateResolver.setCheckExistence(true);
+    sourceTemplateResolver.setOrder(1);
+
+    ClassLoaderTemplateResolver componentTemplateResolver = new ClassLoaderTemplateResolver();
+    componentTemplateResolver.setPrefix("templates/");
+    componentTemplateResolver.setSuffix(".html");
+    componentTemplateResolver.setCheckExistence(true);
+    componentTemplateResolver.setOrder(2);
+
+    ComponentTemplateCompiler compiler = new ComponentTemplateCompiler(new ComponentDialect(true), sourceTemplateResolver, componentTemplateResolver);
+    int compiledTemplates = compiler.compileDirectory(sourceDirectory, targetDirectory);
+
+    LOGGER.info("compiled {} template(s) from {} into {}", compiledTemplates, sourceDirectory, targetDirectory);
+  }
+
+  int compileDirectory(Path sourceDirectory, Path targetDirectory) throws IOException {
+    List<Path> templates;
+
+    try (Stream<Path> files = Files.walk(sourceDirectory)) {
+      templates = files
+        .filter((file) -> Files.isRegularFile(file) && file.toString().endsWith(".html"))
+        .collect(toList());
+    }
+
+    int compiledTemplates = 0;
+
+    for (Path template : templates) {
+      if (!new String(Files.readAllBytes(template), UTF_8).contains(COMPONENT_MARKER)) {
+        continue;
+      }
+
+      Path relativePath = sourceDirectory.relativize(template);
+      Path targetFile = targetDirectory.resolve(relativePath.toString());
+
+      Files.createDirectories(targetFile.getParent());
+      Files.write(targetFile, compile(relativePath.toString().replace('\\', '/')).getBytes(UTF_8));
+      compiledTemplates++;
+    }
+
+    return compiledTemplates;
+  }
+
+  String compile(String templateName) {
+    return templateEngine.process(templateName, new Context());
+  }
+
+  /**
+   * Provides the standard expression parser (required to tell expressions from literals) without registering the
+   * standard dialect, whose processors must not run before rendering.
+   */
+  private static class ExpressionParserDialect extends AbstractDialect implements IExecutionAttributeDialect {
+
+    private ExpressionParserDialect() {
+      super("Component Template Compiler Expression Parser");
+    }
+
+    @Override
+    public Map<String, Object> getExecutionAttributes() {
+      return Map.of(StandardExpressions.STANDARD_EXPRESSION_PARSER_ATTRIBUTE_NAME, new StandardExpressionParser());
+    }
+  }
+}
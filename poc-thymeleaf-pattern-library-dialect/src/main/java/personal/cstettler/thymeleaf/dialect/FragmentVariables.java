@@ -0,0 +1,276 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.thymeleaf.engine.ElementDefinition;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * Determines the variables read by the expressions of a fragment that are not declared by the fragment itself (with
+ * <code>th:with</code> or <code>th:each</code>), i.e. the variables a fragment expects from the outside. Fragments
+ * depending on anything else than such variables (other templates, nested components, links, request or context
+ * objects, static calls, elements or attributes processed by other dialects) are not analyzable. The analysis is
+ * conservative: anything it does not understand counts as dependency.
+ */
+class FragmentVariables {
+
+  private static final Pattern EXPRESSION_START = Pattern.compile("[$*]\\{");
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.)*'");
+  private static final Pattern IDENTIFIER = Pattern.compile("(?<![\\w.#@$])([A-Za-z_]\\w*)");
+  private static final Pattern FUNCTION_CALL = Pattern.compile("(?<![\\w.#@$])[A-Za-z_]\\w*\\s*\\(");
+  private static final Pattern UTILITY_OBJECT = Pattern.compile("#(\\w+)");
+
+  private static final Set<String> KEYWORDS = Set.of(
+    "and", "or", "not", "eq", "ne", "lt", "gt", "le", "ge", "div", "mod", "true", "false", "null", "new", "instanceof", "matches"
+  );
+  // expression utility objects only depending on their arguments (or the locale, which is part of the render cache key)
+  private static final Set<String> PURE_UTILITY_OBJECTS = Set.of(
+    "strings", "numbers", "bools", "arrays", "lists", "sets", "maps", "aggregates", "objects", "messages", "locale"
+  );
+  private static final String STANDARD_PREFIX = "th";
+  private static final Set<String> INCLUDING_ATTRIBUTES = Set.of("th:insert", "th:replace", "th:include", "th:substituteby");
+
+  private FragmentVariables() {
+  }
+
+  /**
+   * Returns the variables read by the given fragment content, or null if the fragment depends on anything else.
+   */
+  static Set<String> readBy(IModel fragmentContent, String dialectPrefix) {
+    Set<String> readVariables = new TreeSet<>();
+    Deque<Set<String>> scopes = new ArrayDeque<>();
+    scopes.push(Set.of());
+
+    for (int i = 0; i < fragmentContent.size(); i++) {
+      ITemplateEvent templateEvent = fragmentContent.get(i);
+
+      if (templateEvent instanceof IProcessableElementTag) {
+        IProcessableElementTag elementTag = (IProcessableElementTag) templateEvent;
+
+        if (isNestedComponent(elementTag, dialectPrefix) || isProcessedByOtherDialect(elementTag)) {
+          return null;
+        }
+
+        Set<String> scope = readByElement(elementTag, dialectPrefix, scopes.peek(), readVariables);
+
+        if (scope == null) {
+          return null;
+        }
+
+        if (templateEvent instanceof IOpenElementTag) {
+          scopes.push(scope);
+        }
+      } else if (templateEvent instanceof ICloseElementTag) {
+        if (scopes.size() > 1) {
+          scopes.pop();
+        }
+      } else if (!(templateEvent instanceof IElementTag) && isInlined(templateEvent.toString())) {
+        if (!addReadVariables(templateEvent.toString(), scopes.peek(), readVariables)) {
+          return null;
+        }
+      }
+    }
+
+    return unmodifiableSet(readVariables);
+  }
+
+  private static Set<String> readByElement(IProcessableElementTag elementTag, String dialectPrefix, Set<String> parentScope,
+    Set<String> readVariables) {
+    Set<String> scope = new HashSet<>(parentScope);
+    String iteration = null;
+    String localVariables = null;
+    List<String> otherValues = new ArrayList<>();
+
+    for (IAttribute attribute : elementTag.getAllAttributes()) {
+      String attributeName = standardAttributeName(attribute.getAttributeCompleteName());
+      String value = attribute.getValue();
+
+      if (attributeName == null) {
+        // slot attributes are removed without evaluating them, anything else processed might depend on anything
+        if (attribute.getAttributeDefinition().hasAssociatedProcessors() && !isSlotAttribute(attribute, dialectPrefix)) {
+          return null;
+        }
+
+        continue;
+      }
+
+      if (value == null) {
+        continue;
+      }
+
+      if (INCLUDING_ATTRIBUTES.contains(attributeName)) {
+        return null;
+      }
+
+      if (attributeName.equals("th:each")) {
+        iteration = value;
+      } else if (attributeName.equals("th:with")) {
+        localVariables = value;
+      } else {
+        otherValues.add(value);
+      }
+    }
+
+    // iterations are processed before local variables, which are processed before all other attributes
+    if (iteration != null) {
+      int separatorIndex = indexOfTopLevel(iteration, ':');
+
+      if (separatorIndex < 0 || !addReadVariables(iteration.substring(separatorIndex + 1), scope, readVariables)) {
+        return null;
+      }
+
+      for (String iterationVariable : splitTopLevel(iteration.substring(0, separatorIndex))) {
+        scope.add(iterationVariable.trim());
+        scope.add(iterationVariable.trim() + "Stat");
+      }
+    }
+
+    if (localVariables != null) {
+      for (String assignation : splitTopLevel(localVariables)) {
+        int assignmentIndex = assignation.indexOf('=');
+
+        if (assignmentIndex < 0 || !addReadVariables(assignation.substring(assignmentIndex + 1), scope, readVariables)) {
+          return null;
+        }
+
+        scope.add(assignation.substring(0, assignmentIndex).trim());
+      }
+    }
+
+    for (String value : otherValues) {
+      if (!addReadVariables(value, scope, readVariables)) {
+        return null;
+      }
+    }
+
+    return scope;
+  }
+
+  private static boolean addReadVariables(String value, Set<String> scope, Set<String> readVariables) {
+    if (value.contains("@{") || value.contains("~{")) {
+      return false;
+    }
+
+    Matcher expressionStart = EXPRESSION_START.matcher(value);
+
+    while (expressionStart.find()) {
+      int expressionEnd = indexOfTopLevel(value.substring(expressionStart.end()), '}');
+
+      if (expressionEnd < 0) {
+        return false;
+      }
+
+      String expression = STRING_LITERAL.matcher(value.substring(expressionStart.end(), expressionStart.end() + expressionEnd)).replaceAll("''");
+
+      if (FUNCTION_CALL.matcher(expression).find() || !onlyPureUtilityObjects(expression)) {
+        return false;
+      }
+
+      Matcher identifier = IDENTIFIER.matcher(expression);
+
+      while (identifier.find()) {
+        if (!KEYWORDS.contains(identifier.group(1)) && !scope.contains(identifier.group(1))) {
+          readVariables.add(identifier.group(1));
+        }
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean onlyPureUtilityObjects(String expression) {
+    Matcher utilityObject = UTILITY_OBJECT.matcher(expression);
+
+    while (utilityObject.find()) {
+      if (!PURE_UTILITY_OBJECTS.contains(utilityObject.group(1))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean isNestedComponent(IProcessableElementTag elementTag, String dialectPrefix) {
+    return elementTag.getElementCompleteName().startsWith(dialectPrefix + ":")
+      && !elementTag.getElementCompleteName().equals(dialectPrefix + ":slot");
+  }
+
+  private static boolean isProcessedByOtherDialect(IProcessableElementTag elementTag) {
+    ElementDefinition elementDefinition = elementTag.getElementDefinition();
+
+    return elementDefinition.hasAssociatedProcessors() && !STANDARD_PREFIX.equals(elementDefinition.getElementName().getPrefix());
+  }
+
+  private static boolean isSlotAttribute(IAttribute attribute, String dialectPrefix) {
+    return attribute.getAttributeCompleteName().equals(dialectPrefix + ":slot");
+  }
+
+  private static boolean isInlined(String text) {
+    return text.contains("[[") || text.contains("[(");
+  }
+
+  private static String standardAttributeName(String attributeCompleteName) {
+    if (attributeCompleteName.startsWith("th:")) {
+      return attributeCompleteName;
+    }
+
+    return attributeCompleteName.startsWith("data-th-") ? "th:" + attributeCompleteName.substring("data-th-".length()) : null;
+  }
+
+  private static List<String> splitTopLevel(String value) {
+    List<String> parts = new ArrayList<>();
+    String remainder = value;
+    int separatorIndex;
+
+    while ((separatorIndex = indexOfTopLevel(remainder, ',')) >= 0) {
+      parts.add(remainder.substring(0, separatorIndex));
+      remainder = remainder.substring(separatorIndex + 1);
+    }
+
+    parts.add(remainder);
+
+    return parts;
+  }
+
+  private static int indexOfTopLevel(String value, char character) {
+    int depth = 0;
+    boolean inStringLiteral = false;
+
+    for (int i = 0; i < value.length(); i++) {
+      char current = value.charAt(i);
+
+      if (inStringLiteral) {
+        if (current == '\\') {
+          i++;
+        } else if (current == '\'') {
+          inStringLiteral = false;
+        }
+      } else if (current == '\'') {
+        inStringLiteral = true;
+      } else if (current == character && depth == 0) {
+        return i;
+      } else if (current == '{' || current == '(' || current == '[') {
+        depth++;
+      } else if (current == '}' || current == ')' || current == ']') {
+        depth--;
+      }
+    }
+
+    return -1;
+  }
+}
@@ -0,0 +1,115 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes component measurements as Micrometer meters, tagged with the component element name. Cache hit ratios
+ * are derived from the hit and miss counters. Requires <code>micrometer-core</code> on the classpath.
+ */
+public class MicrometerComponentMetrics implements ComponentMetrics {
+
+  private static final String METER_NAME_PREFIX = "pattern-library.component.";
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, ComponentMeters> componentMeters;
+  private final Counter expressionCacheHits;
+  private final Counter expressionCacheMisses;
+
+  public MicrometerComponentMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    this.componentMeters = new ConcurrentHashMap<>();
+    this.expressionCacheHits = cacheCounter("expression-cache", "hit").register(meterRegistry);
+    this.expressionCacheMisses = cacheCounter("expression-cache", "miss").register(meterRegistry);
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public void recordExpansion(String componentName, long durationNanos) {
+    metersFor(componentName).expansion.record(durationNanos, NANOSECONDS);
+  }
+
+  @Override
+  public void recordSlotFill(String componentName, long durationNanos) {
+    metersFor(componentName).slotFill.record(durationNanos, NANOSECONDS);
+  }
+
+  @Override
+  public void recordFragmentParse(String componentName, long durationNanos) {
+    metersFor(componentName).fragmentParse.record(durationNanos, NANOSECONDS);
+  }
+
+  @Override
+  public void recordFragmentCacheAccess(String componentName, boolean hit) {
+    ComponentMeters meters = metersFor(componentName);
+    (hit ? meters.fragmentCacheHits : meters.fragmentCacheMisses).increment();
+  }
+
+  @Override
+  public void recordExpressionCacheAccess(boolean hit) {
+    (hit ? expressionCacheHits : expressionCacheMisses).increment();
+  }
+
+  @Override
+  public void recordRenderCacheAccess(String componentName, boolean hit) {
+    ComponentMeters meters = metersFor(componentName);
+    (hit ? meters.renderCacheHits : meters.renderCacheMisses).increment();
+  }
+
+  private ComponentMeters metersFor(String componentName) {
+    ComponentMeters meters = componentMeters.get(componentName);
+
+    if (meters == null) {
+      meters = componentMeters.computeIfAbsent(componentName, (key) -> new ComponentMeters(meterRegistry, key));
+    }
+
+    return meters;
+  }
+
+  private static Counter.Builder cacheCounter(String cacheName, String result) {
+    return Counter.builder(METER_NAME_PREFIX + cacheName)
+      .tag("result", result);
+  }
+
+  private static class ComponentMeters {
+
+    private final Timer expansion;
+    private final Timer slotFill;
+    private final Timer fragmentParse;
+    private final Counter fragmentCacheHits;
+    private final Counter fragmentCacheMisses;
+    private final Counter renderCacheHits;
+    private final Counter renderCacheMisses;
+
+    private ComponentMeters(MeterRegistry meterRegistry, String componentName) {
+      this.expansion = timer("expansion", componentName)
+        .description("time to expand a component usage into the markup of its fragment")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+      this.slotFill = timer("slot-fill", componentName)
+        .description("time to extract slot contents and fill them into the fragment")
+        .register(meterRegistry);
+      this.fragmentParse = timer("fragment-parse", componentName)
+        .description("time to parse and compile the fragment template")
+        .register(meterRegistry);
+      this.fragmentCacheHits = cacheCounter("fragment-cache", "hit").tag("component", componentName).register(meterRegistry);
+      this.fragmentCacheMisses = cacheCounter("fragment-cache", "miss").tag("component", componentName).register(meterRegistry);
+      this.renderCacheHits = cacheCounter("render-cache", "hit").tag("component", componentName).register(meterRegistry);
+      this.renderCacheMisses = cacheCounter("render-cache", "miss").tag("component", componentName).register(meterRegistry);
+    }
+
+    private static Timer.Builder timer(String name, String componentName) {
+      return Timer.builder(METER_NAME_PREFIX + name)
+        .tag("component", componentName);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import java.io.IOException;
+import java.io.Writer;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelVisitor;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * Read-only view of a range of events of another model, used to splice slot contents and fragment segments without
+ * copying their events. Adding a range to a model with {@link IModel#addModel(IModel)} grows the target model only
+ * once. A range is only valid as long as the underlying model is not modified.
+ */
+class ModelRange implements IModel {
+
+  private final IModel model;
+  private final int start;
+  private final int end;
+
+  ModelRange(IModel model, int start, int end) {
+    if (start < 0 || end < start || end > model.size()) {
+      throw new IndexOutOfBoundsException("invalid range [" + start + ", " + end + ") of model with size " + model.size());
+    }
+
+    this.model = model;
+    this.start = start;
+    this.end = end;
+  }
+
+  @Override
+  public IEngineConfiguration getConfiguration() {
+    return model.getConfiguration();
+  }
+
+  @Override
+  public TemplateMode getTemplateMode() {
+    return model.getTemplateMode();
+  }
+
+  @Override
+  public int size() {
+    return end - start;
+  }
+
+  @Override
+  public ITemplateEvent get(int pos) {
+    if (pos < 0 || pos >= size()) {
+      throw new IndexOutOfBoundsException("index " + pos + " out of range of size " + size());
+    }
+
+    return model.get(start + pos);
+  }
+
+  @Override
+  public void add(ITemplateEvent event) {
+    throw readOnly();
+  }
+
+  @Override
+  public void insert(int pos, ITemplateEvent event) {
+    throw readOnly();
+  }
+
+  @Override
+  public void replace(int pos, ITemplateEvent event) {
+    throw readOnly();
+  }
+
+  @Override
+  public void addModel(IModel model) {
+    throw readOnly();
+  }
+
+  @Override
+  public void insertModel(int pos, IModel model) {
+    throw readOnly();
+  }
+
+  @Override
+  public void remove(int pos) {
+    throw readOnly();
+  }
+
+  @Override
+  public void reset() {
+    throw readOnly();
+  }
+
+  @Override
+  public IModel cloneModel() {
+    throw new UnsupportedOperationException("model range cannot be cloned, add it to a model instead");
+  }
+
+  @Override
+  public void write(Writer writer) throws IOException {
+    for (int i = start; i < end; i++) {
+      model.get(i).write(writer);
+    }
+  }
+
+  @Override
+  public void accept(IModelVisitor visitor) {
+    for (int i = start; i < end; i++) {
+      model.get(i).accept(visitor);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder events = new StringBuilder();
+
+    for (int i = start; i < end; i++) {
+      events.append(model.get(i));
+    }
+
+    return events.toString();
+  }
+
+  private static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("model range is read-only");
+  }
+}
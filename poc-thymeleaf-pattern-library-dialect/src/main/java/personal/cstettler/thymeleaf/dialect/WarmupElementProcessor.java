@@ -0,0 +1,31 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.lang.Integer.MAX_VALUE;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import java.util.Collection;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.element.AbstractElementTagProcessor;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+
+/**
+ * Loads the fragments of all components when processing the warmup element (see {@link ComponentDialect#warmup}), as
+ * fragments can only be loaded within the context of a template processed by the template engine.
+ */
+class WarmupElementProcessor extends AbstractElementTagProcessor {
+
+  private final Collection<ComponentModelProcessor> componentProcessors;
+
+  WarmupElementProcessor(String dialectPrefix, String elementName, Collection<ComponentModelProcessor> componentProcessors) {
+    super(HTML, dialectPrefix, elementName, true, null, false, MAX_VALUE);
+
+    this.componentProcessors = componentProcessors;
+  }
+
+  @Override
+  protected void doProcess(ITemplateContext context, IProcessableElementTag tag, IElementTagStructureHandler structureHandler) {
+    componentProcessors.forEach(componentProcessor -> componentProcessor.warmup(context));
+    structureHandler.removeElement();
+  }
+}
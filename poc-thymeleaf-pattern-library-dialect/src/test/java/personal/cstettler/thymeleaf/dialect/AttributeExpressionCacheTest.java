@@ -0,0 +1,68 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.util.Collections.emptyMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.EngineContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.standard.expression.StandardExpressions;
+
+class AttributeExpressionCacheTest {
+
+  private final ITemplateContext context = new EngineContext(new TemplateEngine().getConfiguration(), null, emptyMap(), Locale.ENGLISH, emptyMap());
+
+  @Test
+  void resolve_maximumSizeExceeded_keepsRecentlyUsedExpressionsMemoized() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AttributeExpressionCache attributeExpressionCache = new AttributeExpressionCache(new MicrometerComponentMetrics(meterRegistry), 2);
+
+    attributeExpressionCache.resolve("${first}", context);
+    attributeExpressionCache.resolve("${second}", context);
+    attributeExpressionCache.resolve("${first}", context);
+    attributeExpressionCache.resolve("${third}", context);
+    attributeExpressionCache.resolve("${first}", context);
+    attributeExpressionCache.resolve("${third}", context);
+
+    assertEquals(2, attributeExpressionCache.size());
+    assertEquals(3, meterRegistry.get("pattern-library.component.expression-cache").tag("result", "hit").counter().count());
+    assertEquals(3, meterRegistry.get("pattern-library.component.expression-cache").tag("result", "miss").counter().count());
+  }
+
+  @Test
+  void resolve_literalAndExpression_resolvesLiteralAsIsAndEvaluatesExpression() {
+    AttributeExpressionCache attributeExpressionCache = new AttributeExpressionCache(ComponentMetrics.NONE, 2);
+
+    assertEquals("Click Me", attributeExpressionCache.resolve("Click Me", context));
+    assertEquals("Click Me", attributeExpressionCache.resolve("'Click ' + 'Me'", context));
+  }
+
+  @Test
+  void resolve_plainText_resolvesLiteralWithoutParsing() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AttributeExpressionCache attributeExpressionCache = new AttributeExpressionCache(new MicrometerComponentMetrics(meterRegistry), 2);
+
+    for (String plainText : List.of("Click Me", " Version 1.5 released ", "Hello world.", "42 items")) {
+      assertThrows(TemplateProcessingException.class, () -> StandardExpressions.getExpressionParser(context.getConfiguration()).parseExpression(context, plainText));
+      assertEquals(plainText, attributeExpressionCache.resolve(plainText, context));
+    }
+
+    assertEquals(0, attributeExpressionCache.size());
+    assertEquals(0, meterRegistry.find("pattern-library.component.expression-cache").counters().stream().mapToDouble(Counter::count).sum());
+  }
+
+  @Test
+  void resolve_wordsCombinedByOperatorKeyword_evaluatesExpression() {
+    AttributeExpressionCache attributeExpressionCache = new AttributeExpressionCache(ComponentMetrics.NONE, 2);
+
+    assertEquals(false, attributeExpressionCache.resolve("true and false", context));
+    assertEquals(true, attributeExpressionCache.resolve("not false", context));
+  }
+}
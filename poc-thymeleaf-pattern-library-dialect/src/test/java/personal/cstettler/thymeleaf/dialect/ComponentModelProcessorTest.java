@@ -3,11 +3,20 @@ package personal.cstettler.thymeleaf.dialect;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.thymeleaf.templatemode.TemplateMode.HTML;
-
+import static personal.cstettler.thymeleaf.dialect.ComponentAttribute.optional;
+import static personal.cstettler.thymeleaf.dialect.ComponentAttribute.required;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -15,10 +24,13 @@ import java.util.Map;
 import java.util.Set;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.TemplateSpec;
 import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.model.ICloseElementTag;
 import org.thymeleaf.model.IModel;
 import org.thymeleaf.model.IOpenElementTag;
@@ -29,6 +41,7 @@ import org.thymeleaf.model.ITemplateStart;
 import org.thymeleaf.model.IText;
 import org.thymeleaf.standard.StandardDialect;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
 import org.thymeleaf.templateresolver.ITemplateResolver;
 import org.thymeleaf.templateresolver.StringTemplateResolver;
 import org.thymeleaf.templateresolver.TemplateResolution;
@@ -104,6 +117,65 @@ class ComponentModelProcessorTest {
     assertMarkupEquals("<i></i>", html);
   }
 
+  @Test
+  void withParameter_literalParameterNotParsableAsExpression_rendersLiteral() {
+    String html = render("<pl:with-parameter pl:parameter='not an expression' />");
+
+    assertMarkupEquals("<i>not an expression</i>", html);
+  }
+
+  @Test
+  void withParameter_sameExpressionRenderedWithDifferentValues_rendersEachValue() {
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver());
+
+    String html = render(templateEngine, ""
+      + "<th:block th:each=\"value : ${ {'first', 'second'} }\">"
+      + "  <pl:with-parameter pl:parameter='${value}' />"
+      + "</th:block>"
+    );
+
+    assertMarkupEquals("<i>first</i><i>second</i>", html);
+  }
+
+  @Test
+  void withDeclaredParameter_parameterDefined_rendersParameter() {
+    String html = render("<pl:with-declared-parameter pl:parameter='with-parameter-defined' />");
+
+    assertMarkupEquals("<i>with-parameter-defined</i>", html);
+  }
+
+  @Test
+  void withDeclaredParameter_parameterNotDefined_rendersDefaultValue() {
+    String html = render("<pl:with-declared-parameter />");
+
+    assertMarkupEquals("<i>default-value</i>", html);
+  }
+
+  @Test
+  void withDeclaredParameter_parameterNotDeclared_throwsException() {
+    assertThrowsWithMessage("unknown attribute 'pl:paramter' on component 'pl:with-declared-parameter'",
+      () -> render("<pl:with-declared-parameter pl:paramter='typo' />"));
+  }
+
+  @Test
+  void withRequiredParameter_parameterNotDefined_throwsException() {
+    assertThrowsWithMessage("missing required attribute 'pl:parameter' on component 'pl:with-required-parameter'",
+      () -> render("<pl:with-required-parameter />"));
+  }
+
+  @Test
+  void withRequiredParameter_numericValue_rendersValueConvertedToDeclaredType() {
+    String html = render("<pl:with-required-parameter pl:parameter=' 42 ' />");
+
+    assertMarkupEquals("<i>42</i>", html);
+  }
+
+  @Test
+  void withRequiredParameter_valueOfOtherType_throwsException() {
+    assertThrowsWithMessage("invalid attribute 'pl:parameter' on component 'pl:with-required-parameter'",
+      () -> render("<pl:with-required-parameter pl:parameter='not a number' />"));
+  }
+
   @Test
   void withDefaultSlot_slotContentDefined_rendersSlotContent() {
     String html = render(""
@@ -235,6 +307,235 @@ class ComponentModelProcessorTest {
       + "</div>", html);
   }
 
+  @Test
+  void withManyNamedSlots_deeplyNestedSlotContentsDefined_rendersSlotContents() {
+    StringBuilder template = new StringBuilder("<pl:with-many-named-slots>");
+    template.append(nested(50, "<i>default-slot-content</i>"));
+    for (int slot = 8; slot > 0; slot--) {
+      // named slot definitions nested within default slot content are cut out of the default slot content
+      template.append(nested(slot, "<b pl:slot='slot-" + slot + "'>" + nested(50, "<i>slot-content-" + slot + "</i>") + "</b>"));
+    }
+    template.append("</pl:with-many-named-slots>");
+
+    String html = render(template.toString());
+
+    StringBuilder expected = new StringBuilder("<div>");
+    expected.append(nested(50, "<i>default-slot-content</i>"));
+    for (int slot = 8; slot > 0; slot--) {
+      expected.append(nested(slot, ""));
+    }
+    for (int slot = 1; slot <= 8; slot++) {
+      expected.append("<div><b>").append(nested(50, "<i>slot-content-" + slot + "</i>")).append("</b></div>");
+    }
+    expected.append("</div>");
+    assertMarkupEquals(expected.toString(), html);
+  }
+
+  @Test
+  void withNamedSlots_nestedComponentWithNamedSlotContents_rendersSlotContentsInNestedComponent() {
+    String html = render(""
+      + "<pl:with-named-slots>"
+      + "  <th:block pl:slot='slot-a'>"
+      + "    <pl:with-named-slots>"
+      + "      <i pl:slot='slot-a'>nested-slot-content-a</i>"
+      + "    </pl:with-named-slots>"
+      + "  </th:block>"
+      + "  <i pl:slot='slot-b'>slot-content-b</i>"
+      + "</pl:with-named-slots>"
+    );
+
+    assertMarkupEquals(""
+      + "<div>"
+      + "  <i>with-named-slots</i>"
+      + "  <div>"
+      + "    <div>"
+      + "      <i>with-named-slots</i>"
+      + "      <div>"
+      + "        <i>nested-slot-content-a</i>"
+      + "      </div>"
+      + "      <div>"
+      + "      </div>"
+      + "    </div>"
+      + "  </div>"
+      + "  <div>"
+      + "    <i>slot-content-b</i>"
+      + "  </div>"
+      + "</div>", html);
+  }
+
+  @Test
+  void nestedComponents_constantAndDynamicAttributes_rendersNestedComponents() {
+    String html = render("<pl:with-nested-components><i>slot-content</i></pl:with-nested-components>");
+
+    assertMarkupEquals(""
+      + "<div>"
+      + "  <i>constant</i>"
+      + "  <i>dynamic</i>"
+      + "  <div><i>with-default-slot</i><i>simple</i></div>"
+      + "  <div><i>with-slot-with-fallback</i><i>slot-content</i></div>"
+      + "</div>", html);
+  }
+
+  @Test
+  void nestedComponents_enclosingSlotWithoutContent_rendersFallbackOfNestedComponent() {
+    String html = render("<pl:with-nested-components />");
+
+    assertTrue(html.contains("<p>fallback</p>"), html);
+  }
+
+  @Test
+  void nestedComponents_constantAttributes_expandsNestedComponentsWithEnclosingComponent() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver(), new MicrometerComponentMetrics(meterRegistry));
+
+    render(templateEngine, "<pl:with-nested-components><pl:simple /></pl:with-nested-components>");
+
+    assertEquals(1, meterRegistry.get("pattern-library.component.expansion").tag("component", "with-nested-components").timer().count());
+    // only the nested component with a dynamic attribute and the one depending on the enclosing slot are processed separately
+    assertEquals(1, meterRegistry.get("pattern-library.component.expansion").tag("component", "with-parameter").timer().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.expansion").tag("component", "with-slot-with-fallback").timer().count());
+    assertEquals(0, meterRegistry.get("pattern-library.component.expansion").tag("component", "with-default-slot").timer().count());
+    assertEquals(0, meterRegistry.get("pattern-library.component.expansion").tag("component", "simple").timer().count());
+  }
+
+  @Test
+  void nestedComponents_selfReferencingComponent_rendersWithoutExpandingCycle() {
+    String html = render("<pl:self-referencing />");
+
+    assertMarkupEquals("<i>self-referencing</i><div><i>self-referencing</i></div>", html);
+  }
+
+  @Test
+  void renderCache_staticUsage_rendersCachedMarkupRepeatedly() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver(), renderCachingComponentDialect(meterRegistry));
+
+    String firstHtml = render(templateEngine, "<pl:with-parameter pl:parameter=\"'static'\" />");
+    String secondHtml = render(templateEngine, "<div><pl:with-parameter pl:parameter=\"'static'\" /></div>");
+
+    assertMarkupEquals("<i>static</i>", firstHtml);
+    assertMarkupEquals("<div><i>static</i></div>", secondHtml);
+    assertEquals(1, meterRegistry.get("pattern-library.component.render-cache").tags("component", "with-parameter", "result", "hit").counter().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.render-cache").tags("component", "with-parameter", "result", "miss").counter().count());
+  }
+
+  @Test
+  void renderCache_staticSlotContents_rendersSlotContentsOfEachUsage() {
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver(), renderCachingComponentDialect(new SimpleMeterRegistry()));
+
+    String firstHtml = render(templateEngine, "<pl:with-named-slots><i pl:slot='slot-a'>first</i></pl:with-named-slots>");
+    String secondHtml = render(templateEngine, "<pl:with-named-slots><i pl:slot='slot-a'>second</i></pl:with-named-slots>");
+
+    assertMarkupEquals("<div><i>with-named-slots</i><div><i>first</i></div><div></div></div>", firstHtml);
+    assertMarkupEquals("<div><i>with-named-slots</i><div><i>second</i></div><div></div></div>", secondHtml);
+  }
+
+  @Test
+  void renderCache_dynamicUsage_rendersWithoutRenderCache() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver(), renderCachingComponentDialect(meterRegistry));
+
+    String template = ""
+      + "<th:block th:with=\"value='dynamic'\">"
+      + "<pl:with-parameter pl:parameter=\"${value}\" />"
+      + "<pl:with-default-slot><b th:text=\"${value}\"></b></pl:with-default-slot>"
+      + "<pl:with-default-slot>[[${value}]]</pl:with-default-slot>"
+      + "</th:block>";
+
+    String html = render(templateEngine, template);
+
+    assertEquals(render(templateEngine(new ClassLoaderTemplateResolver()), template), html);
+    assertTrue(html.contains("<b>dynamic</b>"));
+    assertEquals(0, meterRegistry.get("pattern-library.component.render-cache").tags("component", "with-parameter", "result", "miss").counter().count());
+    assertEquals(0, meterRegistry.get("pattern-library.component.render-cache").tags("component", "with-default-slot", "result", "miss").counter().count());
+  }
+
+  @Test
+  void renderCache_fragmentReadingVariableNotPassedAsAttribute_rendersWithoutRenderCache() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver(), renderCachingComponentDialect(meterRegistry));
+
+    String firstHtml = render(templateEngine, "<th:block th:with=\"parameter='first'\"><pl:with-parameter /></th:block>");
+    String secondHtml = render(templateEngine, "<th:block th:with=\"parameter='second'\"><pl:with-parameter /></th:block>");
+
+    assertMarkupEquals("<i>first</i>", firstHtml);
+    assertMarkupEquals("<i>second</i>", secondHtml);
+    assertEquals(0, meterRegistry.get("pattern-library.component.render-cache").tags("component", "with-parameter", "result", "miss").counter().count());
+    assertEquals(2, meterRegistry.get("pattern-library.component.fragment-cache").tags("component", "with-parameter").counters().stream()
+      .mapToDouble(Counter::count).sum());
+  }
+
+  @Test
+  void fragmentCache_cacheableTemplate_rendersCachedFragmentRepeatedly() {
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver());
+
+    String firstHtml = render(templateEngine, "<pl:with-slot-with-fallback><i>first</i></pl:with-slot-with-fallback>");
+    String secondHtml = render(templateEngine, "<pl:with-slot-with-fallback></pl:with-slot-with-fallback>");
+
+    assertMarkupEquals("<div><i>with-slot-with-fallback</i><i>first</i></div>", firstHtml);
+    assertMarkupEquals("<div><i>with-slot-with-fallback</i><p>fallback</p></div>", secondHtml);
+  }
+
+  @Test
+  void fragmentCache_nonCacheableTemplateChanged_rendersChangedFragment(@TempDir Path templateDirectory) throws IOException {
+    Path componentTemplate = templateDirectory.resolve("components/simple.html");
+    Files.createDirectories(componentTemplate.getParent());
+    Files.writeString(componentTemplate, "<th:block th:fragment='simple()'><i>before</i></th:block>");
+
+    FileTemplateResolver fileTemplateResolver = new FileTemplateResolver();
+    fileTemplateResolver.setPrefix(templateDirectory + "/");
+    fileTemplateResolver.setCacheable(false);
+    TemplateEngine templateEngine = templateEngine(fileTemplateResolver);
+
+    String htmlBeforeChange = render(templateEngine, "<pl:simple />");
+    Files.writeString(componentTemplate, "<th:block th:fragment='simple()'><i>after</i></th:block>");
+    String htmlAfterChange = render(templateEngine, "<pl:simple />");
+
+    assertMarkupEquals("<i>before</i>", htmlBeforeChange);
+    assertMarkupEquals("<i>after</i>", htmlAfterChange);
+  }
+
+  @Test
+  void warmup_registeredComponents_loadsFragmentsBeforeFirstUsage() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ComponentDialect componentDialect = new ComponentDialect(new MicrometerComponentMetrics(meterRegistry));
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver(), componentDialect);
+
+    componentDialect.warmup(templateEngine);
+    String html = render(templateEngine, "<pl:with-parameter pl:parameter=\"first\" />");
+
+    assertMarkupEquals("<i>first</i>", html);
+    assertEquals(1, meterRegistry.get("pattern-library.component.fragment-parse").tag("component", "with-parameter").timer().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.fragment-parse").tag("component", "simple").timer().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.fragment-cache").tags("component", "with-parameter", "result", "miss").counter().count());
+  }
+
+  @Test
+  void warmupTemplateResolver_otherTemplate_doesNotResolveTemplate() {
+    ITemplateResolver warmupTemplateResolver = ComponentDialect.warmupTemplateResolver();
+    IEngineConfiguration configuration = new TemplateEngine().getConfiguration();
+
+    assertTrue(warmupTemplateResolver.resolveTemplate(configuration, null, ComponentDialect.WARMUP_TEMPLATE, null) != null);
+    assertEquals(null, warmupTemplateResolver.resolveTemplate(configuration, null, "<pl:simple/>", null));
+  }
+
+  @Test
+  void metrics_enabled_recordsExpansionAndCacheAccesses() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TemplateEngine templateEngine = templateEngine(new ClassLoaderTemplateResolver(), new MicrometerComponentMetrics(meterRegistry));
+
+    render(templateEngine, "<pl:with-parameter pl:parameter=\"${'first'}\" />");
+    render(templateEngine, "<pl:with-parameter pl:parameter=\"${'first'}\" />");
+
+    assertEquals(2, meterRegistry.get("pattern-library.component.expansion").tag("component", "with-parameter").timer().count());
+    assertEquals(2, meterRegistry.get("pattern-library.component.slot-fill").tag("component", "with-parameter").timer().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.fragment-parse").tag("component", "with-parameter").timer().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.fragment-cache").tags("component", "with-parameter", "result", "hit").counter().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.fragment-cache").tags("component", "with-parameter", "result", "miss").counter().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.expression-cache").tag("result", "hit").counter().count());
+    assertEquals(1, meterRegistry.get("pattern-library.component.expression-cache").tag("result", "miss").counter().count());
+  }
+
   @Test
   void subTree_rootStartTemplateEvent_returnsCompleteTree() {
     ITemplateEvent startTemplateEvent = openElementTag();
@@ -369,6 +670,20 @@ class ComponentModelProcessorTest {
     return mock(IText.class);
   }
 
+  private static void assertThrowsWithMessage(String expectedMessage, Executable executable) {
+    Throwable exception = assertThrows(TemplateProcessingException.class, executable);
+
+    while (exception.getCause() != null) {
+      exception = exception.getCause();
+    }
+
+    assertTrue(exception.getMessage().contains(expectedMessage), "unexpected message: " + exception.getMessage());
+  }
+
+  private static String nested(int depth, String content) {
+    return "<div>".repeat(depth) + content + "</div>".repeat(depth);
+  }
+
   private static void assertMarkupEquals(String expected, String actual) {
     assertEquals(trim(expected), trim(actual));
   }
@@ -380,23 +695,51 @@ class ComponentModelProcessorTest {
   }
 
   private static String render(String template) {
-    ComponentDialect componentDialect = new ComponentDialect();
+    return render(templateEngine(new ClassLoaderTemplateResolver()), template);
+  }
+
+  private static String render(TemplateEngine templateEngine, String template) {
+    String result = templateEngine.process(new TemplateSpec(template, HTML), new Context());
+
+    return result.trim();
+  }
+
+  private static TemplateEngine templateEngine(ITemplateResolver componentTemplateResolver) {
+    return templateEngine(componentTemplateResolver, ComponentMetrics.NONE);
+  }
+
+  private static TemplateEngine templateEngine(ITemplateResolver componentTemplateResolver, ComponentMetrics metrics) {
+    return templateEngine(componentTemplateResolver, new ComponentDialect(metrics));
+  }
+
+  private static TemplateEngine templateEngine(ITemplateResolver componentTemplateResolver, ComponentDialect componentDialect) {
     componentDialect.addComponent("simple", "components/simple.html");
     componentDialect.addComponent("with-parameter", "components/with-parameter.html");
+    componentDialect.addComponent("with-declared-parameter", "components/with-parameter.html", ComponentSchema.of(
+      optional("parameter", String.class, "default-value")
+    ));
+    componentDialect.addComponent("with-required-parameter", "components/with-parameter.html", ComponentSchema.of(
+      required("parameter", Integer.class)
+    ));
     componentDialect.addComponent("with-default-and-named-slots", "components/with-default-and-named-slots.html");
     componentDialect.addComponent("with-default-slot", "components/with-default-slot.html");
     componentDialect.addComponent("with-named-slots", "components/with-named-slots.html");
     componentDialect.addComponent("with-slot-with-fallback", "components/with-slot-with-fallback.html");
+    componentDialect.addComponent("with-many-named-slots", "components/with-many-named-slots.html");
+    componentDialect.addComponent("with-nested-components", "components/with-nested-components.html");
+    componentDialect.addComponent("self-referencing", "components/self-referencing.html");
 
     TemplateEngine templateEngine = new TemplateEngine();
-    templateEngine.setTemplateResolvers(setOf(new TemplateResolverChain(new ClassLoaderTemplateResolver(), new StringTemplateResolver())));
+    templateEngine.setTemplateResolvers(setOf(new TemplateResolverChain(componentTemplateResolver, new StringTemplateResolver())));
     templateEngine.setDialects(setOf(new StandardDialect(), componentDialect));
     templateEngine.setCacheManager(null);
     templateEngine.clearTemplateCache();
 
-    String result = templateEngine.process(new TemplateSpec(template, HTML), new Context());
+    return templateEngine;
+  }
 
-    return result.trim();
+  private static ComponentDialect renderCachingComponentDialect(SimpleMeterRegistry meterRegistry) {
+    return new ComponentDialect(new MicrometerComponentMetrics(meterRegistry)).enableRenderCache(100, null);
   }
 
   @SafeVarargs
@@ -0,0 +1,102 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ComponentRegistryTest {
+
+  @TempDir
+  Path firstLibrary;
+
+  @TempDir
+  Path secondLibrary;
+
+  @Test
+  void fromManifests_manifestsOfSeveralLibraries_registersAllComponents() throws IOException {
+    writeManifest(firstLibrary, "button=text, greet\ncollapsible=titleElement,contentElement,initiallyOpen\n");
+    writeManifest(secondLibrary, "# comment\nicon=\n");
+
+    ComponentRegistry componentRegistry = ComponentRegistry.fromManifests(classLoaderFor(firstLibrary, secondLibrary));
+
+    assertEquals(List.of("button", "collapsible", "icon"), List.copyOf(componentRegistry.getComponentNames()));
+    assertEquals("pl/button/button", componentRegistry.templatePathFor("button"));
+    assertEquals(List.of("text", "greet"), attributeNamesOf(componentRegistry.schemaFor("button")));
+    assertTrue(componentRegistry.schemaFor("icon").getAttributes().isEmpty());
+  }
+
+  @Test
+  void fromManifests_typedParameters_registersTypesDefaultsAndRequiredFlags() throws IOException {
+    writeManifest(firstLibrary, "button=text:String!,greet\ncollapsible=titleElement:Object,initiallyOpen:Boolean=false\n");
+
+    ComponentRegistry componentRegistry = ComponentRegistry.fromManifests(classLoaderFor(firstLibrary));
+
+    ComponentAttribute text = componentRegistry.schemaFor("button").getAttributes().get(0);
+    assertEquals(String.class, text.getType());
+    assertTrue(text.isRequired());
+    ComponentAttribute greet = componentRegistry.schemaFor("button").getAttributes().get(1);
+    assertEquals(Object.class, greet.getType());
+    assertFalse(greet.isRequired());
+    ComponentAttribute initiallyOpen = componentRegistry.schemaFor("collapsible").getAttributes().get(1);
+    assertEquals(Boolean.class, initiallyOpen.getType());
+    assertEquals(false, initiallyOpen.getDefaultValue());
+  }
+
+  @Test
+  void fromManifests_unknownParameterType_throwsException() throws IOException {
+    writeManifest(firstLibrary, "button=text:Text\n");
+
+    assertThrows(IllegalStateException.class, () -> ComponentRegistry.fromManifests(classLoaderFor(firstLibrary)));
+  }
+
+  @Test
+  void fromManifests_noManifest_registersNoComponents() {
+    ComponentRegistry componentRegistry = ComponentRegistry.fromManifests(classLoaderFor(firstLibrary));
+
+    assertTrue(componentRegistry.getComponentNames().isEmpty());
+  }
+
+  @Test
+  void register_templatePath_overridesDefaultTemplatePath() {
+    ComponentRegistry componentRegistry = new ComponentRegistry().register("button", "components/button", ComponentSchema.of());
+
+    assertEquals("components/button", componentRegistry.templatePathFor("button"));
+  }
+
+  private static void writeManifest(Path library, String manifest) throws IOException {
+    Path manifestFile = library.resolve(ComponentRegistry.MANIFEST_PATH);
+    Files.createDirectories(manifestFile.getParent());
+    Files.write(manifestFile, manifest.getBytes(UTF_8));
+  }
+
+  private static ClassLoader classLoaderFor(Path... libraries) {
+    URL[] urls = new URL[libraries.length];
+
+    for (int i = 0; i < libraries.length; i++) {
+      try {
+        urls[i] = libraries[i].toUri().toURL();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    // no parent, so that manifests on the test classpath are not found
+    return new URLClassLoader(urls, null);
+  }
+
+  private static List<String> attributeNamesOf(ComponentSchema componentSchema) {
+    return componentSchema.getAttributes().stream().map(ComponentAttribute::getName).collect(toList());
+  }
+}
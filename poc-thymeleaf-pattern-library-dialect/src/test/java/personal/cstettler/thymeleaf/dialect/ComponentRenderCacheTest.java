@@ -0,0 +1,44 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ComponentRenderCacheTest {
+
+  private final ComponentFragment fragment = mock(ComponentFragment.class);
+
+  @Test
+  void get_maximumSizeExceeded_evictsLeastRecentlyUsedEntry() {
+    ComponentRenderCache renderCache = new ComponentRenderCache();
+    renderCache.configure(2, null);
+
+    renderCache.put("first", fragment, "<i>first</i>");
+    renderCache.put("second", fragment, "<i>second</i>");
+    renderCache.get("first", fragment);
+    renderCache.put("third", fragment, "<i>third</i>");
+
+    assertEquals("<i>first</i>", renderCache.get("first", fragment));
+    assertNull(renderCache.get("second", fragment));
+    assertEquals("<i>third</i>", renderCache.get("third", fragment));
+  }
+
+  @Test
+  void get_fragmentParsedAgain_evictsEntry() {
+    ComponentRenderCache renderCache = new ComponentRenderCache();
+    renderCache.configure(10, Duration.ofHours(1));
+    renderCache.put("key", fragment, "<i>rendered</i>");
+
+    assertNull(renderCache.get("key", mock(ComponentFragment.class)));
+    assertEquals(0, renderCache.size());
+  }
+
+  @Test
+  void isEnabled_notConfigured_isDisabled() {
+    assertFalse(new ComponentRenderCache().isEnabled());
+  }
+}
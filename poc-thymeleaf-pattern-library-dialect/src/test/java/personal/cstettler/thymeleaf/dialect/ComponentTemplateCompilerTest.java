@@ -0,0 +1,133 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+import static personal.cstettler.thymeleaf.dialect.ComponentAttribute.optional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+class ComponentTemplateCompilerTest {
+
+  @TempDir
+  Path sourceDirectory;
+
+  @TempDir
+  Path targetDirectory;
+
+  @Test
+  void compileDirectory_templateWithComponents_rendersSameAsRuntimeExpansion() throws IOException {
+    String template = ""
+      + "<div th:with=\"value='dynamic'\">"
+      + "<pl:with-parameter pl:parameter=\"${value}\" />"
+      + "<pl:with-parameter pl:parameter=\"it's not an expression\" />"
+      + "<pl:with-named-slots><b pl:slot=\"slot-b\" th:text=\"${value}\"></b><a pl:slot=\"slot-a\">a</a></pl:with-named-slots>"
+      + "<pl:with-parameter th:if=\"false\" pl:parameter=\"hidden\" />"
+      + "</div>";
+    write("pages/page.html", template);
+
+    int compiledTemplates = compiler().compileDirectory(sourceDirectory, targetDirectory);
+
+    String compiledTemplate = read("pages/page.html");
+    assertEquals(1, compiledTemplates);
+    assertFalse(compiledTemplate.contains("<pl:"), compiledTemplate);
+    assertEquals(renderAtRuntime("pages/page.html"), renderCompiled(compiledTemplate));
+  }
+
+  @Test
+  void compileDirectory_declaredAttributeMissing_assignsDefaultValue() throws IOException {
+    write("page.html", "<pl:with-declared-parameter />");
+
+    compiler().compileDirectory(sourceDirectory, targetDirectory);
+
+    assertEquals("<i>default-value</i>", renderCompiled(read("page.html")).trim());
+  }
+
+  @Test
+  void compileDirectory_templateWithoutComponents_isSkipped() throws IOException {
+    write("page.html", "<div th:text=\"${value}\"></div>");
+
+    int compiledTemplates = compiler().compileDirectory(sourceDirectory, targetDirectory);
+
+    assertEquals(0, compiledTemplates);
+    assertFalse(Files.exists(targetDirectory.resolve("page.html")));
+  }
+
+  @Test
+  void compileDirectory_unknownAttribute_fails() throws IOException {
+    write("page.html", "<pl:with-declared-parameter pl:unknown=\"value\" />");
+
+    Throwable exception = assertThrows(TemplateProcessingException.class, () -> compiler().compileDirectory(sourceDirectory, targetDirectory));
+
+    while (exception.getCause() != null) {
+      exception = exception.getCause();
+    }
+
+    assertTrue(exception.getMessage().contains("unknown attribute 'pl:unknown'"), exception.getMessage());
+  }
+
+  private void write(String templateName, String content) throws IOException {
+    Path file = sourceDirectory.resolve(templateName);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(UTF_8));
+  }
+
+  private String read(String templateName) throws IOException {
+    return new String(Files.readAllBytes(targetDirectory.resolve(templateName)), UTF_8);
+  }
+
+  private ComponentTemplateCompiler compiler() {
+    return new ComponentTemplateCompiler(withTestComponents(new ComponentDialect(true)), sourceTemplateResolver(), componentTemplateResolver());
+  }
+
+  private String renderAtRuntime(String templateName) {
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.addTemplateResolver(sourceTemplateResolver());
+    templateEngine.addTemplateResolver(componentTemplateResolver());
+    templateEngine.addDialect(withTestComponents(new ComponentDialect()));
+
+    return templateEngine.process(templateName, new Context());
+  }
+
+  private FileTemplateResolver sourceTemplateResolver() {
+    FileTemplateResolver sourceTemplateResolver = new FileTemplateResolver();
+    sourceTemplateResolver.setPrefix(sourceDirectory + "/");
+    sourceTemplateResolver.setCheckExistence(true);
+    sourceTemplateResolver.setOrder(1);
+
+    return sourceTemplateResolver;
+  }
+
+  private static ClassLoaderTemplateResolver componentTemplateResolver() {
+    ClassLoaderTemplateResolver componentTemplateResolver = new ClassLoaderTemplateResolver();
+    componentTemplateResolver.setOrder(2);
+
+    return componentTemplateResolver;
+  }
+
+  private static String renderCompiled(String compiledTemplate) {
+    return new TemplateEngine().process(new TemplateSpec(compiledTemplate, HTML), new Context());
+  }
+
+  private static ComponentDialect withTestComponents(ComponentDialect componentDialect) {
+    return componentDialect
+      .addComponent("with-parameter", "components/with-parameter.html")
+      .addComponent("with-declared-parameter", "components/with-parameter.html", ComponentSchema.of(
+        optional("parameter", String.class, "default-value")
+      ))
+      .addComponent("with-named-slots", "components/with-named-slots.html");
+  }
+}
@@ -0,0 +1,117 @@
+package personal.cstettler.thymeleaf.dialect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.processor.element.AbstractAttributeTagProcessor;
+import org.thymeleaf.processor.element.AbstractElementTagProcessor;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+
+class FragmentVariablesTest {
+
+  private static final TemplateEngine TEMPLATE_ENGINE = templateEngine();
+
+  @Test
+  void readBy_expressionsAndInlinedText_returnsReadVariables() {
+    Set<String> readVariables = FragmentVariables.readBy(parse(""
+      + "<i th:text=\"${text}\" th:classappend=\"'pl-' + ${type} + ${#strings.toUpperCase(kind)}\"></i>"
+      + "<b th:if=\"${message} != null and ${item.active}\">[[${greet}]]</b>"
+    ), "pl");
+
+    assertEquals(Set.of("text", "type", "kind", "message", "item", "greet"), readVariables);
+  }
+
+  @Test
+  void readBy_locallyDeclaredVariables_excludesThemWithinTheirScope() {
+    Set<String> readVariables = FragmentVariables.readBy(parse(""
+      + "<ul th:with=\"prefix='item ', first=${prefix + items[0]}\">"
+      + "<li th:each=\"item : ${items}\" th:text=\"${prefix + item + itemStat.index}\"></li>"
+      + "</ul>"
+      + "<i th:text=\"${prefix}\"></i>"
+    ), "pl");
+
+    assertEquals(Set.of("items", "prefix"), readVariables);
+  }
+
+  @Test
+  void readBy_dependenciesOtherThanVariables_returnsNull() {
+    assertNull(FragmentVariables.readBy(parse("<th:block th:replace=\"${titleElement}\"/>"), "pl"));
+    assertNull(FragmentVariables.readBy(parse("<img th:src=\"@{/pl/icon.png}\"/>"), "pl"));
+    assertNull(FragmentVariables.readBy(parse("<i th:text=\"${#request.getParameter('name')}\"></i>"), "pl"));
+    assertNull(FragmentVariables.readBy(parse("<i th:text=\"${T(java.lang.Math).random()}\"></i>"), "pl"));
+    assertNull(FragmentVariables.readBy(parse("<pl:button pl:text=\"${text}\"/>"), "pl"));
+  }
+
+  @Test
+  void readBy_elementsAndAttributesOfOtherDialects_returnsNull() {
+    assertNull(FragmentVariables.readBy(parse("<i sec:authorize=\"isAuthenticated()\" th:text=\"${text}\"></i>"), "pl"));
+    assertNull(FragmentVariables.readBy(parse("<sec:flush/>"), "pl"));
+  }
+
+  @Test
+  void readBy_slotAttributesAndStandardElements_returnsReadVariables() {
+    Set<String> readVariables = FragmentVariables.readBy(parse(""
+      + "<th:block th:if=\"${visible}\"><pl:slot pl:name=\"content\"><i pl:slot=\"content\">text</i></pl:slot></th:block>"
+    ), "pl");
+
+    assertEquals(Set.of("visible"), readVariables);
+  }
+
+  private static IModel parse(String markup) {
+    TemplateData templateData = mock(TemplateData.class);
+    when(templateData.getTemplate()).thenReturn(markup);
+    when(templateData.getTemplateMode()).thenReturn(HTML);
+
+    return TEMPLATE_ENGINE.getConfiguration().getTemplateManager().parseString(templateData, markup, 0, 0, HTML, false);
+  }
+
+  private static TemplateEngine templateEngine() {
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.addDialect(new ComponentDialect());
+    templateEngine.addDialect(new AbstractProcessorDialect("Other", "sec", 1000) {
+
+      @Override
+      public Set<IProcessor> getProcessors(String dialectPrefix) {
+        return Set.of(new NoOpAttributeProcessor(dialectPrefix, "authorize"), new NoOpElementProcessor(dialectPrefix, "flush"));
+      }
+    });
+
+    return templateEngine;
+  }
+
+  private static class NoOpAttributeProcessor extends AbstractAttributeTagProcessor {
+
+    NoOpAttributeProcessor(String dialectPrefix, String attributeName) {
+      super(HTML, dialectPrefix, null, false, attributeName, true, 1000, true);
+    }
+
+    @Override
+    protected void doProcess(ITemplateContext context, IProcessableElementTag tag, AttributeName attributeName, String attributeValue,
+      IElementTagStructureHandler structureHandler) {
+    }
+  }
+
+  private static class NoOpElementProcessor extends AbstractElementTagProcessor {
+
+    NoOpElementProcessor(String dialectPrefix, String elementName) {
+      super(HTML, dialectPrefix, elementName, true, null, false, 1000);
+    }
+
+    @Override
+    protected void doProcess(ITemplateContext context, IProcessableElementTag tag, IElementTagStructureHandler structureHandler) {
+    }
+  }
+}